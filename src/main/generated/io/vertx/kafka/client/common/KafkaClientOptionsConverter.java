@@ -20,6 +20,31 @@ public class KafkaClientOptionsConverter {
   public static void fromJson(Iterable<java.util.Map.Entry<String, Object>> json, KafkaClientOptions obj) {
     for (java.util.Map.Entry<String, Object> member : json) {
       switch (member.getKey()) {
+        case "asyncCommit":
+          if (member.getValue() instanceof Boolean) {
+            obj.setAsyncCommit((Boolean)member.getValue());
+          }
+          break;
+        case "asyncCommitInterval":
+          if (member.getValue() instanceof Number) {
+            obj.setAsyncCommitInterval(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "autoTransactions":
+          if (member.getValue() instanceof Boolean) {
+            obj.setAutoTransactions((Boolean)member.getValue());
+          }
+          break;
+        case "bufferMemoryBackpressure":
+          if (member.getValue() instanceof Boolean) {
+            obj.setBufferMemoryBackpressure((Boolean)member.getValue());
+          }
+          break;
+        case "coalesceWindow":
+          if (member.getValue() instanceof Number) {
+            obj.setCoalesceWindow(((Number)member.getValue()).longValue());
+          }
+          break;
         case "config":
           if (member.getValue() instanceof JsonObject) {
             java.util.Map<String, java.lang.Object> map = new java.util.LinkedHashMap<>();
@@ -30,6 +55,86 @@ public class KafkaClientOptionsConverter {
             obj.setConfig(map);
           }
           break;
+        case "directSend":
+          if (member.getValue() instanceof Boolean) {
+            obj.setDirectSend((Boolean)member.getValue());
+          }
+          break;
+        case "dispatchMaxRecords":
+          if (member.getValue() instanceof Number) {
+            obj.setDispatchMaxRecords(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "dispatchMaxTime":
+          if (member.getValue() instanceof Number) {
+            obj.setDispatchMaxTime(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "dispatchMode":
+          if (member.getValue() instanceof String) {
+            obj.setDispatchMode(io.vertx.kafka.client.consumer.DispatchMode.valueOf((String)member.getValue()));
+          }
+          break;
+        case "fireAndForget":
+          if (member.getValue() instanceof Boolean) {
+            obj.setFireAndForget((Boolean)member.getValue());
+          }
+          break;
+        case "idleMaxBackoff":
+          if (member.getValue() instanceof Number) {
+            obj.setIdleMaxBackoff(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "idleStrategy":
+          if (member.getValue() instanceof String) {
+            obj.setIdleStrategy(io.vertx.kafka.client.consumer.IdleStrategy.valueOf((String)member.getValue()));
+          }
+          break;
+        case "maxBytesPerSecond":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxBytesPerSecond(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "maxRecordsPerSecond":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxRecordsPerSecond(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "partitionBufferSize":
+          if (member.getValue() instanceof Number) {
+            obj.setPartitionBufferSize(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "partitionParallelism":
+          if (member.getValue() instanceof Number) {
+            obj.setPartitionParallelism(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "pollerPoolName":
+          if (member.getValue() instanceof String) {
+            obj.setPollerPoolName((String)member.getValue());
+          }
+          break;
+        case "pollerPoolSize":
+          if (member.getValue() instanceof Number) {
+            obj.setPollerPoolSize(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "prefetchDepth":
+          if (member.getValue() instanceof Number) {
+            obj.setPrefetchDepth(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "rateLimitBurst":
+          if (member.getValue() instanceof Number) {
+            obj.setRateLimitBurst(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "recordReuse":
+          if (member.getValue() instanceof Boolean) {
+            obj.setRecordReuse((Boolean)member.getValue());
+          }
+          break;
         case "tracePeerAddress":
           if (member.getValue() instanceof String) {
             obj.setTracePeerAddress((String)member.getValue());
@@ -40,6 +145,36 @@ public class KafkaClientOptionsConverter {
             obj.setTracingPolicy(io.vertx.core.tracing.TracingPolicy.valueOf((String)member.getValue()));
           }
           break;
+        case "trackAcknowledgements":
+          if (member.getValue() instanceof Boolean) {
+            obj.setTrackAcknowledgements((Boolean)member.getValue());
+          }
+          break;
+        case "transactionMaxRecords":
+          if (member.getValue() instanceof Number) {
+            obj.setTransactionMaxRecords(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "transactionMaxRetries":
+          if (member.getValue() instanceof Number) {
+            obj.setTransactionMaxRetries(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "transactionMaxTime":
+          if (member.getValue() instanceof Number) {
+            obj.setTransactionMaxTime(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "warmUpTopics":
+          if (member.getValue() instanceof JsonArray) {
+            java.util.ArrayList<java.lang.String> list =  new java.util.ArrayList<>();
+            ((Iterable<Object>)member.getValue()).forEach( item -> {
+              if (item instanceof String)
+                list.add((String)item);
+            });
+            obj.setWarmUpTopics(list);
+          }
+          break;
       }
     }
   }
@@ -49,16 +184,52 @@ public class KafkaClientOptionsConverter {
   }
 
   public static void toJson(KafkaClientOptions obj, java.util.Map<String, Object> json) {
+    json.put("asyncCommit", obj.isAsyncCommit());
+    json.put("asyncCommitInterval", obj.getAsyncCommitInterval());
+    json.put("autoTransactions", obj.isAutoTransactions());
+    json.put("bufferMemoryBackpressure", obj.isBufferMemoryBackpressure());
+    json.put("coalesceWindow", obj.getCoalesceWindow());
     if (obj.getConfig() != null) {
       JsonObject map = new JsonObject();
       obj.getConfig().forEach((key, value) -> map.put(key, value));
       json.put("config", map);
     }
+    json.put("directSend", obj.isDirectSend());
+    json.put("dispatchMaxRecords", obj.getDispatchMaxRecords());
+    json.put("dispatchMaxTime", obj.getDispatchMaxTime());
+    if (obj.getDispatchMode() != null) {
+      json.put("dispatchMode", obj.getDispatchMode().name());
+    }
+    json.put("fireAndForget", obj.isFireAndForget());
+    json.put("idleMaxBackoff", obj.getIdleMaxBackoff());
+    if (obj.getIdleStrategy() != null) {
+      json.put("idleStrategy", obj.getIdleStrategy().name());
+    }
+    json.put("maxBytesPerSecond", obj.getMaxBytesPerSecond());
+    json.put("maxRecordsPerSecond", obj.getMaxRecordsPerSecond());
+    json.put("partitionBufferSize", obj.getPartitionBufferSize());
+    json.put("partitionParallelism", obj.getPartitionParallelism());
+    if (obj.getPollerPoolName() != null) {
+      json.put("pollerPoolName", obj.getPollerPoolName());
+    }
+    json.put("pollerPoolSize", obj.getPollerPoolSize());
+    json.put("prefetchDepth", obj.getPrefetchDepth());
+    json.put("rateLimitBurst", obj.getRateLimitBurst());
+    json.put("recordReuse", obj.isRecordReuse());
     if (obj.getTracePeerAddress() != null) {
       json.put("tracePeerAddress", obj.getTracePeerAddress());
     }
     if (obj.getTracingPolicy() != null) {
       json.put("tracingPolicy", obj.getTracingPolicy().name());
     }
+    json.put("trackAcknowledgements", obj.isTrackAcknowledgements());
+    json.put("transactionMaxRecords", obj.getTransactionMaxRecords());
+    json.put("transactionMaxRetries", obj.getTransactionMaxRetries());
+    json.put("transactionMaxTime", obj.getTransactionMaxTime());
+    if (obj.getWarmUpTopics() != null) {
+      JsonArray array = new JsonArray();
+      obj.getWarmUpTopics().forEach(item -> array.add(item));
+      json.put("warmUpTopics", array);
+    }
   }
 }
@@ -19,10 +19,14 @@ import io.vertx.codegen.annotations.DataObject;
 import io.vertx.codegen.annotations.GenIgnore;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.tracing.TracingPolicy;
+import io.vertx.kafka.client.consumer.DispatchMode;
+import io.vertx.kafka.client.consumer.IdleStrategy;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -41,9 +45,160 @@ public class KafkaClientOptions {
    */
   public static final TracingPolicy DEFAULT_TRACING_POLICY = TracingPolicy.PROPAGATE;
 
+  /**
+   * Default poller pool name is null, each consumer polls Kafka on its own thread
+   */
+  public static final String DEFAULT_POLLER_POOL_NAME = null;
+
+  /**
+   * Default poller pool size is the number of available processors
+   */
+  public static final int DEFAULT_POLLER_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Default maximum number of records dispatched per event loop turn is 10
+   */
+  public static final int DEFAULT_DISPATCH_MAX_RECORDS = 10;
+
+  /**
+   * Default maximum time spent dispatching records per event loop turn is 0 (no time limit)
+   */
+  public static final long DEFAULT_DISPATCH_MAX_TIME = 0L;
+
+  /**
+   * Default prefetch depth is 0, the next batch of records is polled once the current one has been dispatched
+   */
+  public static final int DEFAULT_PREFETCH_DEPTH = 0;
+
+  /**
+   * Default dispatch mode is {@link DispatchMode#RECORD}
+   */
+  public static final DispatchMode DEFAULT_DISPATCH_MODE = DispatchMode.RECORD;
+
+  /**
+   * Default idle strategy is {@link IdleStrategy#IMMEDIATE}
+   */
+  public static final IdleStrategy DEFAULT_IDLE_STRATEGY = IdleStrategy.IMMEDIATE;
+
+  /**
+   * Default maximum delay between empty polls is 100 milliseconds
+   */
+  public static final long DEFAULT_IDLE_MAX_BACKOFF = 100L;
+
+  /**
+   * Default partition parallelism is 0, all records are delivered on the consumer context
+   */
+  public static final int DEFAULT_PARTITION_PARALLELISM = 0;
+
+  /**
+   * Default number of records buffered per partition before the partition is paused is 500
+   */
+  public static final int DEFAULT_PARTITION_BUFFER_SIZE = 500;
+
+  /**
+   * Default async commit is false, offsets are committed synchronously
+   */
+  public static final boolean DEFAULT_ASYNC_COMMIT = false;
+
+  /**
+   * Default async commit interval is 0, pending commits are sent as soon as the consumer is available
+   */
+  public static final long DEFAULT_ASYNC_COMMIT_INTERVAL = 0L;
+
+  /**
+   * Default track acknowledgements is false
+   */
+  public static final boolean DEFAULT_TRACK_ACKNOWLEDGEMENTS = false;
+
+  /**
+   * Default record reuse is false, a new record is created for each record delivered
+   */
+  public static final boolean DEFAULT_RECORD_REUSE = false;
+
+  /**
+   * Default direct send is false, records are sent from a worker thread
+   */
+  public static final boolean DEFAULT_DIRECT_SEND = false;
+
+  /**
+   * Default fire and forget is false, the future returned by a write is completed when the record is acknowledged
+   */
+  public static final boolean DEFAULT_FIRE_AND_FORGET = false;
+
+  /**
+   * Default buffer memory backpressure is false, the write queue only depends on its max size
+   */
+  public static final boolean DEFAULT_BUFFER_MEMORY_BACKPRESSURE = false;
+
+  /**
+   * Default auto transactions is false, the user manages the transactions of a transactional producer
+   */
+  public static final boolean DEFAULT_AUTO_TRANSACTIONS = false;
+
+  /**
+   * Default transaction max records is 500 records
+   */
+  public static final int DEFAULT_TRANSACTION_MAX_RECORDS = 500;
+
+  /**
+   * Default transaction max time is 100 milliseconds
+   */
+  public static final long DEFAULT_TRANSACTION_MAX_TIME = 100L;
+
+  /**
+   * Default transaction max retries is 3 retries
+   */
+  public static final int DEFAULT_TRANSACTION_MAX_RETRIES = 3;
+
+  /**
+   * Default coalesce window is 0, records are not coalesced
+   */
+  public static final long DEFAULT_COALESCE_WINDOW = 0L;
+
+  /**
+   * Default max records per second is 0, the records written are not limited
+   */
+  public static final long DEFAULT_MAX_RECORDS_PER_SECOND = 0L;
+
+  /**
+   * Default max bytes per second is 0, the bytes written are not limited
+   */
+  public static final long DEFAULT_MAX_BYTES_PER_SECOND = 0L;
+
+  /**
+   * Default rate limit burst is 1000 milliseconds
+   */
+  public static final long DEFAULT_RATE_LIMIT_BURST = 1000L;
+
   private Map<String, Object> config;
   private String tracePeerAddress = DEFAULT_TRACE_PEER_ADDRESS;
   private TracingPolicy tracingPolicy = DEFAULT_TRACING_POLICY;
+  private String pollerPoolName = DEFAULT_POLLER_POOL_NAME;
+  private int pollerPoolSize = DEFAULT_POLLER_POOL_SIZE;
+  private int dispatchMaxRecords = DEFAULT_DISPATCH_MAX_RECORDS;
+  private long dispatchMaxTime = DEFAULT_DISPATCH_MAX_TIME;
+  private int prefetchDepth = DEFAULT_PREFETCH_DEPTH;
+  private DispatchMode dispatchMode = DEFAULT_DISPATCH_MODE;
+  private IdleStrategy idleStrategy = DEFAULT_IDLE_STRATEGY;
+  private long idleMaxBackoff = DEFAULT_IDLE_MAX_BACKOFF;
+  private int partitionParallelism = DEFAULT_PARTITION_PARALLELISM;
+  private int partitionBufferSize = DEFAULT_PARTITION_BUFFER_SIZE;
+  private boolean asyncCommit = DEFAULT_ASYNC_COMMIT;
+  private long asyncCommitInterval = DEFAULT_ASYNC_COMMIT_INTERVAL;
+  private boolean trackAcknowledgements = DEFAULT_TRACK_ACKNOWLEDGEMENTS;
+  private boolean recordReuse = DEFAULT_RECORD_REUSE;
+  private boolean directSend = DEFAULT_DIRECT_SEND;
+  private boolean fireAndForget = DEFAULT_FIRE_AND_FORGET;
+  private boolean bufferMemoryBackpressure = DEFAULT_BUFFER_MEMORY_BACKPRESSURE;
+  private List<String> warmUpTopics;
+  private boolean autoTransactions = DEFAULT_AUTO_TRANSACTIONS;
+  private int transactionMaxRecords = DEFAULT_TRANSACTION_MAX_RECORDS;
+  private long transactionMaxTime = DEFAULT_TRANSACTION_MAX_TIME;
+  private int transactionMaxRetries = DEFAULT_TRANSACTION_MAX_RETRIES;
+  private long coalesceWindow = DEFAULT_COALESCE_WINDOW;
+  private long maxRecordsPerSecond = DEFAULT_MAX_RECORDS_PER_SECOND;
+  private long maxBytesPerSecond = DEFAULT_MAX_BYTES_PER_SECOND;
+  private long rateLimitBurst = DEFAULT_RATE_LIMIT_BURST;
 
   public KafkaClientOptions() {
   }
@@ -144,6 +299,594 @@ public class KafkaClientOptions {
     return this;
   }
 
+  /**
+   * @return the name of the shared poller pool used by consumers
+   */
+  public String getPollerPoolName() {
+    return pollerPoolName;
+  }
+
+  /**
+   * Set the name of a poller pool shared by consumers.
+   * <p>
+   * Consumers created with the same pool name poll Kafka on the same bounded set of threads instead of
+   * using a dedicated thread each. Each consumer is still accessed by a single thread at a time and
+   * consumers are polled in turn. Pooled consumers never block a pool thread: they poll without waiting, the
+   * {@link io.vertx.kafka.client.consumer.KafkaReadStream#pollTimeout poll timeout} is ignored, and back off after
+   * empty polls with the {@link IdleStrategy#BACKOFF} idle strategy whatever the configured one.
+   * <p>
+   * Leave it unset to use a dedicated thread per consumer.
+   *
+   * @param pollerPoolName the poller pool name
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setPollerPoolName(String pollerPoolName) {
+    this.pollerPoolName = pollerPoolName;
+    return this;
+  }
+
+  /**
+   * @return the number of threads of the shared poller pool
+   */
+  public int getPollerPoolSize() {
+    return pollerPoolSize;
+  }
+
+  /**
+   * Set the number of threads of the shared poller pool. The size is fixed by the first consumer
+   * creating the pool, it is ignored when a consumer joins an existing pool.
+   *
+   * @param pollerPoolSize the number of threads
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setPollerPoolSize(int pollerPoolSize) {
+    if (pollerPoolSize < 1) {
+      throw new IllegalArgumentException("pollerPoolSize must be > 0");
+    }
+    this.pollerPoolSize = pollerPoolSize;
+    return this;
+  }
+
+  /**
+   * @return the maximum number of records dispatched per event loop turn
+   */
+  public int getDispatchMaxRecords() {
+    return dispatchMaxRecords;
+  }
+
+  /**
+   * Set the maximum number of records a consumer dispatches to its handler in a single event loop turn
+   * before yielding the event loop. The consumer demand is reserved once for all these records.
+   *
+   * @param dispatchMaxRecords the maximum number of records
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setDispatchMaxRecords(int dispatchMaxRecords) {
+    if (dispatchMaxRecords < 1) {
+      throw new IllegalArgumentException("dispatchMaxRecords must be > 0");
+    }
+    this.dispatchMaxRecords = dispatchMaxRecords;
+    return this;
+  }
+
+  /**
+   * @return the maximum time in nanoseconds spent dispatching records per event loop turn
+   */
+  public long getDispatchMaxTime() {
+    return dispatchMaxTime;
+  }
+
+  /**
+   * Set the maximum time in nanoseconds a consumer spends dispatching records to its handler in a single
+   * event loop turn before yielding the event loop, {@code 0} means no time limit.
+   *
+   * @param dispatchMaxTime the maximum time in nanoseconds
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setDispatchMaxTime(long dispatchMaxTime) {
+    if (dispatchMaxTime < 0) {
+      throw new IllegalArgumentException("dispatchMaxTime must be >= 0");
+    }
+    this.dispatchMaxTime = dispatchMaxTime;
+    return this;
+  }
+
+  /**
+   * @return the number of batches of records a consumer polls ahead of the dispatch
+   */
+  public int getPrefetchDepth() {
+    return prefetchDepth;
+  }
+
+  /**
+   * Set the number of batches of records a consumer polls ahead while the current batch is being dispatched,
+   * so polling Kafka and handling records overlap. {@code 0} disables prefetching.
+   * <p>
+   * Prefetched records of partitions that are sought or revoked are discarded. Prefetched records
+   * of paused partitions are still delivered.
+   * <p>
+   * The position of the consumer is then ahead of the prefetched records, {@code commit()} commits the offsets of the
+   * records delivered so far instead.
+   *
+   * @param prefetchDepth the number of prefetched batches
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setPrefetchDepth(int prefetchDepth) {
+    if (prefetchDepth < 0) {
+      throw new IllegalArgumentException("prefetchDepth must be >= 0");
+    }
+    this.prefetchDepth = prefetchDepth;
+    return this;
+  }
+
+  /**
+   * @return the context on which a consumer delivers records
+   */
+  public DispatchMode getDispatchMode() {
+    return dispatchMode;
+  }
+
+  /**
+   * Set the context on which a consumer delivers records, {@link DispatchMode#BATCH} and {@link DispatchMode#CONSUMER}
+   * avoid creating a context per record and only apply when tracing is disabled.
+   *
+   * @param dispatchMode the dispatch mode
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setDispatchMode(DispatchMode dispatchMode) {
+    this.dispatchMode = dispatchMode;
+    return this;
+  }
+
+  /**
+   * @return how a consumer polls again after a poll returned no records
+   */
+  public IdleStrategy getIdleStrategy() {
+    return idleStrategy;
+  }
+
+  /**
+   * Set how a consumer polls again after a poll returned no records.
+   *
+   * @param idleStrategy the idle strategy
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setIdleStrategy(IdleStrategy idleStrategy) {
+    this.idleStrategy = idleStrategy;
+    return this;
+  }
+
+  /**
+   * @return the maximum delay between empty polls in milliseconds
+   */
+  public long getIdleMaxBackoff() {
+    return idleMaxBackoff;
+  }
+
+  /**
+   * Set the maximum delay between empty polls in milliseconds, used by the {@link IdleStrategy#BACKOFF}
+   * and {@link IdleStrategy#PARK} idle strategies.
+   *
+   * @param idleMaxBackoff the maximum delay in milliseconds
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setIdleMaxBackoff(long idleMaxBackoff) {
+    if (idleMaxBackoff <= 0) {
+      throw new IllegalArgumentException("idleMaxBackoff must be > 0");
+    }
+    this.idleMaxBackoff = idleMaxBackoff;
+    return this;
+  }
+
+  /**
+   * @return the number of event loop contexts the records of a consumer are delivered on
+   */
+  public int getPartitionParallelism() {
+    return partitionParallelism;
+  }
+
+  /**
+   * Set the number of event loop contexts the records of a consumer are delivered on. Each assigned partition
+   * is pinned to one of these contexts, the records of a partition are delivered in order while distinct partitions
+   * are handled in parallel. {@code 0} delivers all records on the consumer context.
+   * <p>
+   * Each partition has its own demand: {@code pause}, {@code resume} and {@code fetch} called by the handler while it
+   * handles a record only apply to the partition of the record, a paused partition is paused on the consumer once
+   * records are buffered for it. Called elsewhere they apply to every partition.
+   * <p>
+   * In this mode {@code commit()} commits the offsets of the records delivered to the handler rather than
+   * the consumer position, {@code enable.auto.commit} should therefore be disabled.
+   *
+   * @param partitionParallelism the number of contexts
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setPartitionParallelism(int partitionParallelism) {
+    if (partitionParallelism < 0) {
+      throw new IllegalArgumentException("partitionParallelism must be >= 0");
+    }
+    this.partitionParallelism = partitionParallelism;
+    return this;
+  }
+
+  /**
+   * @return the number of records buffered per partition before the partition is paused
+   */
+  public int getPartitionBufferSize() {
+    return partitionBufferSize;
+  }
+
+  /**
+   * Set the number of records buffered per partition before the consumer pauses the partition, the partition
+   * is resumed once half of the buffer has been delivered. Used when records are delivered per partition.
+   *
+   * @param partitionBufferSize the number of records
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setPartitionBufferSize(int partitionBufferSize) {
+    if (partitionBufferSize <= 0) {
+      throw new IllegalArgumentException("partitionBufferSize must be > 0");
+    }
+    this.partitionBufferSize = partitionBufferSize;
+    return this;
+  }
+
+  /**
+   * @return whether a consumer commits offsets asynchronously
+   */
+  public boolean isAsyncCommit() {
+    return asyncCommit;
+  }
+
+  /**
+   * Set whether a consumer commits offsets asynchronously. Commits requested until the next commit is sent are
+   * merged into a single commit keeping the highest offset of each partition, each request is completed with the
+   * result of the commit that covered it.
+   *
+   * @param asyncCommit whether to commit asynchronously
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setAsyncCommit(boolean asyncCommit) {
+    this.asyncCommit = asyncCommit;
+    return this;
+  }
+
+  /**
+   * @return the interval in milliseconds between asynchronous commits
+   */
+  public long getAsyncCommitInterval() {
+    return asyncCommitInterval;
+  }
+
+  /**
+   * Set the interval in milliseconds during which asynchronous commit requests are merged before being sent,
+   * {@code 0} sends them as soon as the consumer is available.
+   *
+   * @param asyncCommitInterval the interval in milliseconds
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setAsyncCommitInterval(long asyncCommitInterval) {
+    if (asyncCommitInterval < 0) {
+      throw new IllegalArgumentException("asyncCommitInterval must be >= 0");
+    }
+    this.asyncCommitInterval = asyncCommitInterval;
+    return this;
+  }
+
+  /**
+   * @return whether a consumer tracks the acknowledgement of the records it delivers
+   */
+  public boolean isTrackAcknowledgements() {
+    return trackAcknowledgements;
+  }
+
+  /**
+   * Set whether a consumer tracks the acknowledgement of the records it delivers, records can then be acknowledged
+   * out of order and {@code commit()} commits, for each partition, the offset of the first record not yet
+   * acknowledged.
+   *
+   * @param trackAcknowledgements whether to track acknowledgements
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setTrackAcknowledgements(boolean trackAcknowledgements) {
+    this.trackAcknowledgements = trackAcknowledgements;
+    return this;
+  }
+
+  /**
+   * @return whether a {@code KafkaConsumer} reuses the same record instance for the records it delivers
+   */
+  public boolean isRecordReuse() {
+    return recordReuse;
+  }
+
+  /**
+   * Set whether a {@code KafkaConsumer} reuses the same {@code KafkaConsumerRecord} instance for the records it delivers
+   * to its handler. The record is only valid during the call to the handler and must not be kept.
+   * <p>
+   * Records are not reused when they are delivered on several contexts.
+   *
+   * @param recordReuse whether to reuse records
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setRecordReuse(boolean recordReuse) {
+    this.recordReuse = recordReuse;
+    return this;
+  }
+
+  /**
+   * @return whether a producer sends records directly from the calling thread when it cannot block
+   */
+  public boolean isDirectSend() {
+    return directSend;
+  }
+
+  /**
+   * Set whether a producer sends records directly from the calling thread, typically an event loop, instead of
+   * handing each record to a worker thread.
+   * <p>
+   * A record is sent directly only when the partition metadata of its topic is known and the producer buffer
+   * is not close to full, otherwise the send falls back to a worker thread since it could block.
+   *
+   * @param directSend whether to send records directly
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setDirectSend(boolean directSend) {
+    this.directSend = directSend;
+    return this;
+  }
+
+  /**
+   * @return whether the writes of a producer are fire and forget
+   */
+  public boolean isFireAndForget() {
+    return fireAndForget;
+  }
+
+  /**
+   * Set whether the writes of a producer are fire and forget: {@code write} returns a completed future and does not
+   * track the acknowledgement of each record, failures are only reported to the exception handler and counted.
+   * <p>
+   * The write queue and the drain handler keep working as usual, {@code send} still tracks each record.
+   *
+   * @param fireAndForget whether writes are fire and forget
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setFireAndForget(boolean fireAndForget) {
+    this.fireAndForget = fireAndForget;
+    return this;
+  }
+
+  /**
+   * @return whether the write queue of a producer also follows the buffer memory available in the Kafka producer
+   */
+  public boolean isBufferMemoryBackpressure() {
+    return bufferMemoryBackpressure;
+  }
+
+  /**
+   * Set whether the write queue of a producer is also considered full when less than a quarter of the Kafka producer
+   * {@code buffer.memory} is available, which accounts for the records of every stream sharing the producer.
+   *
+   * @param bufferMemoryBackpressure whether to follow the producer buffer memory
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setBufferMemoryBackpressure(boolean bufferMemoryBackpressure) {
+    this.bufferMemoryBackpressure = bufferMemoryBackpressure;
+    return this;
+  }
+
+  /**
+   * @return the topics whose metadata a producer fetches when it is created
+   */
+  public List<String> getWarmUpTopics() {
+    return warmUpTopics;
+  }
+
+  /**
+   * Set the topics whose metadata a producer fetches when it is created, so the first records sent to these topics
+   * do not wait for it. The metadata is then refreshed in the background so the producer does not expire it.
+   *
+   * @param warmUpTopics the topics
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setWarmUpTopics(List<String> warmUpTopics) {
+    this.warmUpTopics = warmUpTopics;
+    return this;
+  }
+
+  /**
+   * Add a topic whose metadata a producer fetches when it is created.
+   *
+   * @param topic the topic
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions addWarmUpTopic(String topic) {
+    if (warmUpTopics == null) {
+      warmUpTopics = new ArrayList<>();
+    }
+    warmUpTopics.add(topic);
+    return this;
+  }
+
+  /**
+   * @return whether a transactional producer opens and commits the transactions of the records it sends
+   */
+  public boolean isAutoTransactions() {
+    return autoTransactions;
+  }
+
+  /**
+   * Set whether a transactional producer opens and commits the transactions of the records it sends. The records
+   * sent concurrently share a transaction which is committed after {@link #getTransactionMaxRecords()} records or
+   * {@link #getTransactionMaxTime()} milliseconds, a send completes once its transaction is committed.
+   *
+   * @param autoTransactions whether to manage the transactions
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setAutoTransactions(boolean autoTransactions) {
+    this.autoTransactions = autoTransactions;
+    return this;
+  }
+
+  /**
+   * @return the maximum number of records in a transaction opened on behalf of the user
+   */
+  public int getTransactionMaxRecords() {
+    return transactionMaxRecords;
+  }
+
+  /**
+   * Set the maximum number of records in a transaction opened on behalf of the user, the transaction is committed
+   * once it holds this many records.
+   *
+   * @param transactionMaxRecords the maximum number of records
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setTransactionMaxRecords(int transactionMaxRecords) {
+    if (transactionMaxRecords < 1) {
+      throw new IllegalArgumentException("transactionMaxRecords must be > 0");
+    }
+    this.transactionMaxRecords = transactionMaxRecords;
+    return this;
+  }
+
+  /**
+   * @return the maximum time in milliseconds a transaction opened on behalf of the user stays open
+   */
+  public long getTransactionMaxTime() {
+    return transactionMaxTime;
+  }
+
+  /**
+   * Set the maximum time in milliseconds a transaction opened on behalf of the user stays open, the transaction is
+   * committed after this time even when it holds less than {@link #getTransactionMaxRecords()} records.
+   *
+   * @param transactionMaxTime the maximum time in milliseconds
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setTransactionMaxTime(long transactionMaxTime) {
+    if (transactionMaxTime < 1) {
+      throw new IllegalArgumentException("transactionMaxTime must be > 0");
+    }
+    this.transactionMaxTime = transactionMaxTime;
+    return this;
+  }
+
+  /**
+   * @return the number of times a transactional pipeline retries a record it cannot transform
+   */
+  public int getTransactionMaxRetries() {
+    return transactionMaxRetries;
+  }
+
+  /**
+   * Set the number of times a transactional pipeline retries a record it cannot transform. Each failure aborts the
+   * transaction and consumes the record again, once the retries are exhausted the record is skipped.
+   *
+   * @param transactionMaxRetries the maximum number of retries
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setTransactionMaxRetries(int transactionMaxRetries) {
+    if (transactionMaxRetries < 0) {
+      throw new IllegalArgumentException("transactionMaxRetries must be >= 0");
+    }
+    this.transactionMaxRetries = transactionMaxRetries;
+    return this;
+  }
+
+  /**
+   * @return the time in milliseconds during which a producer coalesces the records sent with the same key
+   */
+  public long getCoalesceWindow() {
+    return coalesceWindow;
+  }
+
+  /**
+   * Set the time in milliseconds during which a producer coalesces the records sent with the same key, for
+   * compacted topics where only the last value of a key matters. A record with a key is held for this time and
+   * replaced by the records sent to the same topic and partition with the same key meanwhile, only the last one is
+   * written. The send of a replaced record fails with a
+   * {@link io.vertx.kafka.client.producer.RecordCoalescedException}, its write succeeds. A record sent in a batch
+   * is not held, the record held with the same key is written before it. {@code 0} disables coalescing.
+   *
+   * @param coalesceWindow the window in milliseconds
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setCoalesceWindow(long coalesceWindow) {
+    if (coalesceWindow < 0) {
+      throw new IllegalArgumentException("coalesceWindow must be >= 0");
+    }
+    this.coalesceWindow = coalesceWindow;
+    return this;
+  }
+
+  /**
+   * @return the maximum number of records a producer writes per second
+   */
+  public long getMaxRecordsPerSecond() {
+    return maxRecordsPerSecond;
+  }
+
+  /**
+   * Set the maximum number of records a producer writes per second, {@code 0} for no limit. Above this rate the records
+   * sent or written are held, in order, until the rate goes down and the write queue of the producer is full.
+   *
+   * @param maxRecordsPerSecond the maximum number of records per second
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setMaxRecordsPerSecond(long maxRecordsPerSecond) {
+    if (maxRecordsPerSecond < 0) {
+      throw new IllegalArgumentException("maxRecordsPerSecond must be >= 0");
+    }
+    this.maxRecordsPerSecond = maxRecordsPerSecond;
+    return this;
+  }
+
+  /**
+   * @return the maximum number of bytes a producer writes per second
+   */
+  public long getMaxBytesPerSecond() {
+    return maxBytesPerSecond;
+  }
+
+  /**
+   * Set the maximum number of bytes a producer writes per second, {@code 0} for no limit. The size of a record is
+   * measured as for the write queue. Above this rate the records sent or written are held, in order, until the rate
+   * goes down and the write queue of the producer is full.
+   *
+   * @param maxBytesPerSecond the maximum number of bytes per second
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setMaxBytesPerSecond(long maxBytesPerSecond) {
+    if (maxBytesPerSecond < 0) {
+      throw new IllegalArgumentException("maxBytesPerSecond must be >= 0");
+    }
+    this.maxBytesPerSecond = maxBytesPerSecond;
+    return this;
+  }
+
+  /**
+   * @return the time in milliseconds a producer can write at once the records and bytes of the rate limits
+   */
+  public long getRateLimitBurst() {
+    return rateLimitBurst;
+  }
+
+  /**
+   * Set the burst capacity of the rate limits, as the time in milliseconds of records and bytes a producer can write
+   * at once after being idle.
+   *
+   * @param rateLimitBurst the burst time in milliseconds
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setRateLimitBurst(long rateLimitBurst) {
+    if (rateLimitBurst < 1) {
+      throw new IllegalArgumentException("rateLimitBurst must be > 0");
+    }
+    this.rateLimitBurst = rateLimitBurst;
+    return this;
+  }
+
   public JsonObject toJson() {
     return new JsonObject(config);
   }
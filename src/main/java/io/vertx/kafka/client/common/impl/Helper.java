@@ -16,7 +16,10 @@
 
 package io.vertx.kafka.client.common.impl;
 
+import io.netty.buffer.Unpooled;
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.buffer.impl.BufferInternal;
 import io.vertx.kafka.admin.Config;
 import io.vertx.kafka.admin.ConfigEntry;
 import io.vertx.kafka.admin.ConsumerGroupListing;
@@ -52,6 +55,13 @@ public class Helper {
   private Helper() {
   }
 
+  /**
+   * Wrap {@code bytes} in a read-only buffer without copying them.
+   */
+  public static Buffer wrap(byte[] bytes) {
+    return BufferInternal.buffer(Unpooled.wrappedBuffer(bytes).asReadOnly());
+  }
+
   public static <T> Set<T> toSet(Collection<T> collection) {
     if (collection instanceof Set) {
       return (Set<T>) collection;
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.consumer;
+
+import io.vertx.codegen.annotations.VertxGen;
+
+/**
+ * Defines the context on which a consumer delivers records to its handler.
+ * <p>
+ * When tracing is enabled, records are always delivered on their own context since the
+ * tracing data is stored in the context.
+ */
+@VertxGen
+public enum DispatchMode {
+
+  /**
+   * Each record is delivered on its own duplicated context.
+   */
+  RECORD,
+
+  /**
+   * The records of a polled batch share a single duplicated context.
+   */
+  BATCH,
+
+  /**
+   * Records are delivered on the consumer context.
+   */
+  CONSUMER
+
+}
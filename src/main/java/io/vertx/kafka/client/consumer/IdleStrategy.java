@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.consumer;
+
+import io.vertx.codegen.annotations.VertxGen;
+
+/**
+ * Defines how a consumer polls Kafka again after a poll returned no records.
+ * <p>
+ * Empty polls are retried on the poller without going through the event loop.
+ */
+@VertxGen
+public enum IdleStrategy {
+
+  /**
+   * Poll again immediately.
+   */
+  IMMEDIATE,
+
+  /**
+   * Poll again after a delay doubling with each empty poll, up to the maximum idle backoff, the
+   * poller is released while waiting.
+   */
+  BACKOFF,
+
+  /**
+   * Park the poller thread for a delay doubling with each empty poll, up to the maximum idle backoff.
+   * <p>
+   * Consumers sharing a poller pool never park a thread of the pool, they use {@link #BACKOFF} instead.
+   */
+  PARK
+
+}
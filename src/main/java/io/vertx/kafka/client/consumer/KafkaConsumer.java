@@ -117,7 +117,7 @@ public interface KafkaConsumer<K, V> extends ReadStream<KafkaConsumerRecord<K, V
    */
   static <K, V> KafkaConsumer<K, V> create(Vertx vertx, KafkaClientOptions options) {
     KafkaReadStream<K, V> stream = KafkaReadStream.create(vertx, options);
-    return new KafkaConsumerImpl<>(stream).registerCloseHook();
+    return new KafkaConsumerImpl<>(stream, options).registerCloseHook();
   }
 
   /**
@@ -132,7 +132,7 @@ public interface KafkaConsumer<K, V> extends ReadStream<KafkaConsumerRecord<K, V
   static <K, V> KafkaConsumer<K, V> create(Vertx vertx, KafkaClientOptions options,
                                            Class<K> keyType, Class<V> valueType) {
     KafkaReadStream<K, V> stream = KafkaReadStream.create(vertx, options, keyType, valueType);
-    return new KafkaConsumerImpl<>(stream).registerCloseHook();
+    return new KafkaConsumerImpl<>(stream, options).registerCloseHook();
   }
 
   /**
@@ -148,7 +148,7 @@ public interface KafkaConsumer<K, V> extends ReadStream<KafkaConsumerRecord<K, V
   static <K, V> KafkaConsumer<K, V> create(Vertx vertx, KafkaClientOptions options,
                                            Deserializer<K> keyDeserializer, Deserializer<V> valueDeserializer) {
     KafkaReadStream<K, V> stream = KafkaReadStream.create(vertx, options, keyDeserializer, valueDeserializer);
-    return new KafkaConsumerImpl<>(stream).registerCloseHook();
+    return new KafkaConsumerImpl<>(stream, options).registerCloseHook();
   }
 
   /**
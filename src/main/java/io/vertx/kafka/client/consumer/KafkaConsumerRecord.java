@@ -17,6 +17,7 @@
 package io.vertx.kafka.client.consumer;
 
 import io.vertx.codegen.annotations.GenIgnore;
+import io.vertx.codegen.annotations.Nullable;
 import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.kafka.client.producer.KafkaHeader;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -66,10 +67,32 @@ public interface KafkaConsumerRecord<K, V> {
   V value();
 
   /**
+   * The returned list is immutable and the header values are read-only buffers wrapping the record bytes without
+   * copying them, copy a header into a new {@link KafkaHeader} to modify it.
+   *
    * @return the list of consumer record headers
    */
   List<KafkaHeader> headers();
 
+  /**
+   * Lookup a header without building the list of headers.
+   *
+   * @param key the header key
+   * @return the last header with the given {@code key} or {@code null}
+   */
+  @Nullable
+  KafkaHeader header(String key);
+
+  /**
+   * Acknowledge this record, see {@link KafkaReadStream#ack(ConsumerRecord)}.
+   */
+  void ack();
+
+  /**
+   * Reject this record, see {@link KafkaReadStream#nack(ConsumerRecord)}.
+   */
+  void nack();
+
   /**
    * @return  the native Kafka consumer record with backed information
    */
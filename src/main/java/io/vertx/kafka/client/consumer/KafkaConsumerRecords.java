@@ -19,6 +19,10 @@ import org.apache.kafka.clients.consumer.ConsumerRecords;
 
 import io.vertx.codegen.annotations.GenIgnore;
 import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.kafka.client.common.TopicPartition;
+
+import java.util.List;
+import java.util.Set;
 
 /**
  * Vert.x Kafka consumer records
@@ -39,6 +43,31 @@ public interface KafkaConsumerRecords<K, V> {
    * @throws IndexOutOfBoundsException if index <0 or index>={@link #size()}
    */
   KafkaConsumerRecord<K, V> recordAt(int index);
+
+  /**
+   * @return the partitions which have records in this batch
+   */
+  Set<TopicPartition> partitions();
+
+  /**
+   * Get the records of a single partition, records are wrapped only when they are accessed.
+   *
+   * @param partition the partition to get the records of
+   * @return the records of the partition in offset order, or an empty list when the batch has no records for it
+   */
+  List<KafkaConsumerRecord<K, V>> records(TopicPartition partition);
+
+  /**
+   * @param partition the partition
+   * @return the offset of the first record of the partition in this batch, or {@code -1} when the batch has no records for it
+   */
+  long firstOffset(TopicPartition partition);
+
+  /**
+   * @param partition the partition
+   * @return the offset of the last record of the partition in this batch, or {@code -1} when the batch has no records for it
+   */
+  long lastOffset(TopicPartition partition);
   
   /**
    * @return  the native Kafka consumer records with backed information
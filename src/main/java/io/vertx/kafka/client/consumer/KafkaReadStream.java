@@ -25,6 +25,7 @@ import io.vertx.kafka.client.common.KafkaClientOptions;
 import io.vertx.kafka.client.consumer.impl.KafkaReadStreamImpl;
 import io.vertx.kafka.client.serialization.VertxSerdes;
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
@@ -233,6 +234,18 @@ public interface KafkaReadStream<K, V> extends ReadStream<ConsumerRecord<K, V>>
     return new KafkaReadStreamImpl<>(vertx, consumer, new KafkaClientOptions());
   }
 
+  /**
+   * Create a new KafkaReadStream instance
+   *
+   * @param vertx Vert.x instance to use
+   * @param consumer  native Kafka consumer instance
+   * @param options  Kafka consumer options, the Kafka config is ignored
+   * @return an instance of the KafkaReadStream
+   */
+  static <K, V> KafkaReadStream<K, V> create(Vertx vertx, Consumer<K, V> consumer, KafkaClientOptions options) {
+    return new KafkaReadStreamImpl<>(vertx, consumer, options);
+  }
+
   /**
    * Get the last committed offset for the given partition (whether the commit happened by this process or another).
    *
@@ -438,6 +451,13 @@ public interface KafkaReadStream<K, V> extends ReadStream<ConsumerRecord<K, V>>
    */
   Future<Map<TopicPartition, OffsetAndMetadata>> commit(Map<TopicPartition, OffsetAndMetadata> offsets);
 
+  /**
+   * Get the group metadata of the consumer, to send along with the offsets committed by a transactional producer.
+   *
+   * @return a {@code Future} completed with the group metadata
+   */
+  Future<ConsumerGroupMetadata> groupMetadata();
+
   /**
    * Get metadata about the partitions for a given topic.
    *
@@ -541,4 +561,59 @@ public interface KafkaReadStream<K, V> extends ReadStream<ConsumerRecord<K, V>>
    * @return a future notified on operation completed
    */
   Future<ConsumerRecords<K, V>> poll(Duration timeout);
+
+  /**
+   * Get a stream of the records of a single partition, with its own demand: pausing the returned stream only pauses
+   * this partition on the consumer while the other partitions keep flowing. The records of the partition are no longer
+   * delivered to the handler of this stream.
+   * <p>
+   * Up to {@link KafkaClientOptions#getPartitionBufferSize()} records of the partition are buffered while the
+   * partition stream is paused. Records of partitions without a partition stream are still subject to the demand of
+   * this stream, while this stream is paused with such records pending these partitions are paused on the consumer
+   * and the partition streams keep being polled.
+   * <p>
+   * The partition stream ends when the partition is revoked or no longer assigned, and when the consumer is closed,
+   * a new partition stream can then be obtained for the partition. Failures of the consumer polls are reported to the
+   * exception handlers of the partition streams as well.
+   *
+   * @param partition the partition
+   * @return the stream of the partition records
+   */
+  ReadStream<ConsumerRecord<K, V>> partitionStream(TopicPartition partition);
+
+  /**
+   * Acknowledge a record delivered to the handler, the records of a partition can be acknowledged in any order.
+   * <p>
+   * Requires {@link KafkaClientOptions#setTrackAcknowledgements(boolean)}, {@link #commit()} then commits for each
+   * partition the offset of the first delivered record not yet acknowledged.
+   *
+   * @param record the record
+   */
+  void ack(ConsumerRecord<K, V> record);
+
+  /**
+   * Reject a record delivered to the handler, the committed offset of its partition does not move past the record
+   * and the partition is sought back to the record so that it is delivered again.
+   * <p>
+   * Requires {@link KafkaClientOptions#setTrackAcknowledgements(boolean)}.
+   *
+   * @param record the record
+   */
+  void nack(ConsumerRecord<K, V> record);
+
+  /**
+   * @return the number of polls that returned no records
+   */
+  long emptyPolls();
+
+  /**
+   * @return the time in nanoseconds spent polling without getting records
+   */
+  long idleTime();
+
+  /**
+   * @return the metrics of the poller pool this stream polls Kafka on, or {@code null} when the stream
+   * uses a dedicated thread or has not been started yet
+   */
+  PollerPoolMetrics pollerPoolMetrics();
 }
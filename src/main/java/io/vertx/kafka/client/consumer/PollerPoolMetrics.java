@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.consumer;
+
+/**
+ * Saturation metrics of a poller pool shared by several {@link KafkaReadStream}.
+ *
+ * @see io.vertx.kafka.client.common.KafkaClientOptions#setPollerPoolName(String)
+ */
+public interface PollerPoolMetrics {
+
+  /**
+   * @return the name of the pool
+   */
+  String name();
+
+  /**
+   * @return the number of threads of the pool
+   */
+  int size();
+
+  /**
+   * @return the number of consumers currently using the pool
+   */
+  int consumers();
+
+  /**
+   * @return the number of threads currently executing a consumer task
+   */
+  int activeThreads();
+
+  /**
+   * @return the number of consumers having pending tasks and waiting for a thread, a value constantly above zero
+   * means the pool is saturated
+   */
+  int queuedConsumers();
+
+  /**
+   * @return the total number of consumer tasks executed by the pool
+   */
+  long completedTasks();
+}
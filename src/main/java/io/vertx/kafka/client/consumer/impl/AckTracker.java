@@ -0,0 +1,212 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.consumer.impl;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the records delivered and not yet acknowledged, per partition.
+ * <p>
+ * Records can be acknowledged in any order, the offset committable for a partition is its low watermark: the offset
+ * of the first delivered record not yet acknowledged, or the offset following the last delivered record.
+ */
+class AckTracker {
+
+  private final Map<TopicPartition, PartitionAcks> partitions = new ConcurrentHashMap<>();
+  private volatile PartitionAcks last;
+
+  /**
+   * Track a record being delivered.
+   */
+  void track(ConsumerRecord<?, ?> record) {
+    partition(record, true).track(record.offset());
+  }
+
+  /**
+   * Acknowledge a delivered record.
+   */
+  void ack(ConsumerRecord<?, ?> record) {
+    PartitionAcks acks = partition(record, false);
+    if (acks != null) {
+      acks.ack(record.offset());
+    }
+  }
+
+  /**
+   * Reject a delivered record, the low watermark of its partition will not move past it.
+   *
+   * @return {@code true} when the partition must be rewound to the record, {@code false} when it is already being
+   * rewound to a lower offset
+   */
+  boolean nack(ConsumerRecord<?, ?> record) {
+    PartitionAcks acks = partition(record, false);
+    return acks != null && acks.nack(record.offset());
+  }
+
+  /**
+   * Forget the records of the given partitions, called when their position changes.
+   */
+  void reset(Collection<TopicPartition> partitions) {
+    for (TopicPartition partition : partitions) {
+      this.partitions.remove(partition);
+    }
+    last = null;
+  }
+
+  /**
+   * Forget the records of a partition from the given offset on, called when the partition is rewound to a rejected
+   * record. The records delivered before that offset and not yet acknowledged keep holding the low watermark.
+   */
+  void rewind(TopicPartition partition, long offset) {
+    PartitionAcks acks = partitions.get(partition);
+    if (acks != null) {
+      acks.rewind(offset);
+    }
+  }
+
+  /**
+   * @return the low watermark of each partition
+   */
+  Map<TopicPartition, OffsetAndMetadata> watermarks() {
+    Map<TopicPartition, OffsetAndMetadata> watermarks = new HashMap<>();
+    for (PartitionAcks acks : partitions.values()) {
+      long watermark = acks.watermark();
+      if (watermark >= 0L) {
+        watermarks.put(acks.partition, new OffsetAndMetadata(watermark));
+      }
+    }
+    return watermarks;
+  }
+
+  private PartitionAcks partition(ConsumerRecord<?, ?> record, boolean create) {
+    PartitionAcks acks = last;
+    if (acks != null && acks.partition.partition() == record.partition() && acks.partition.topic().equals(record.topic())) {
+      return acks;
+    }
+    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+    acks = create ? partitions.computeIfAbsent(partition, PartitionAcks::new) : partitions.get(partition);
+    if (acks != null) {
+      last = acks;
+    }
+    return acks;
+  }
+
+  /**
+   * Bitmap of the delivered records not yet acknowledged, starting at {@code base}.
+   */
+  static final class PartitionAcks {
+
+    final TopicPartition partition;
+    private long base = -1L;
+    private long[] words = new long[1];
+    private long next = -1L;
+    private long rewind = -1L;
+
+    PartitionAcks(TopicPartition partition) {
+      this.partition = partition;
+    }
+
+    synchronized void track(long offset) {
+      if (base < 0L) {
+        base = offset & ~63L;
+      } else if (offset < base) {
+        int shift = (int) ((base - offset + 63) >>> 6);
+        long[] grown = new long[words.length + shift];
+        System.arraycopy(words, 0, grown, shift, words.length);
+        words = grown;
+        base -= (long) shift << 6;
+      }
+      long index = offset - base;
+      if (index >= (long) words.length << 6) {
+        int length = words.length;
+        while (index >= (long) length << 6) {
+          length <<= 1;
+        }
+        words = Arrays.copyOf(words, length);
+      }
+      words[(int) (index >>> 6)] |= 1L << index;
+      if (offset + 1 > next) {
+        next = offset + 1;
+      }
+    }
+
+    synchronized void ack(long offset) {
+      long index = offset - base;
+      if (base < 0L || index < 0L || index >= (long) words.length << 6) {
+        return;
+      }
+      words[(int) (index >>> 6)] &= ~(1L << index);
+      compact();
+    }
+
+    synchronized boolean nack(long offset) {
+      if (rewind < 0L || offset < rewind) {
+        rewind = offset;
+        return true;
+      }
+      return false;
+    }
+
+    synchronized void rewind(long offset) {
+      if (base >= 0L && offset < next) {
+        long index = Math.max(offset - base, 0L);
+        int word = (int) (index >>> 6);
+        if (word < words.length) {
+          words[word] &= (1L << index) - 1L;
+          Arrays.fill(words, word + 1, words.length, 0L);
+        }
+        next = offset;
+      }
+      if (offset <= rewind) {
+        rewind = -1L;
+      }
+    }
+
+    synchronized long watermark() {
+      if (base < 0L) {
+        return -1L;
+      }
+      for (int i = 0; i < words.length; i++) {
+        if (words[i] != 0L) {
+          return base + ((long) i << 6) + Long.numberOfTrailingZeros(words[i]);
+        }
+      }
+      return next;
+    }
+
+    // Drop the leading words whose records have all been acknowledged
+    private void compact() {
+      int count = 0;
+      while (count < words.length && words[count] == 0L && base + ((long) (count + 1) << 6) <= next) {
+        count++;
+      }
+      if (count > 0) {
+        System.arraycopy(words, count, words, 0, words.length - count);
+        Arrays.fill(words, words.length - count, words.length, 0L);
+        base += (long) count << 6;
+      }
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.consumer.impl;
+
+import io.vertx.core.Promise;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the commit requests made until the next commit is sent, keeping the highest offset per partition.
+ */
+class CommitCoalescer {
+
+  private Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+  private List<Promise<Map<TopicPartition, OffsetAndMetadata>>> waiters = new ArrayList<>();
+  private boolean positions;
+  private boolean scheduled;
+
+  /**
+   * Add a commit request.
+   *
+   * @param offsets the offsets to commit or {@code null} to commit the current positions
+   * @param promise completed with the result of the commit covering the request
+   * @return {@code true} when the caller must schedule the commit of the pending requests
+   */
+  synchronized boolean add(Map<TopicPartition, OffsetAndMetadata> offsets, Promise<Map<TopicPartition, OffsetAndMetadata>> promise) {
+    if (offsets == null) {
+      positions = true;
+    } else {
+      merge(this.offsets, offsets);
+    }
+    waiters.add(promise);
+    if (scheduled) {
+      return false;
+    }
+    scheduled = true;
+    return true;
+  }
+
+  /**
+   * @return the pending requests or {@code null} when there are none
+   */
+  synchronized Batch take() {
+    scheduled = false;
+    if (waiters.isEmpty()) {
+      return null;
+    }
+    Batch batch = new Batch(offsets, positions, waiters);
+    offsets = new HashMap<>();
+    waiters = new ArrayList<>();
+    positions = false;
+    return batch;
+  }
+
+  /**
+   * Merge {@code offsets} into {@code target}, keeping the highest offset per partition.
+   */
+  static void merge(Map<TopicPartition, OffsetAndMetadata> target, Map<TopicPartition, OffsetAndMetadata> offsets) {
+    offsets.forEach((partition, offset) -> target.merge(partition, offset, (o1, o2) -> o2.offset() >= o1.offset() ? o2 : o1));
+  }
+
+  /**
+   * Commit requests merged into a single commit.
+   */
+  static class Batch {
+
+    final Map<TopicPartition, OffsetAndMetadata> offsets;
+    final boolean positions;
+    private final List<Promise<Map<TopicPartition, OffsetAndMetadata>>> waiters;
+
+    private Batch(Map<TopicPartition, OffsetAndMetadata> offsets, boolean positions, List<Promise<Map<TopicPartition, OffsetAndMetadata>>> waiters) {
+      this.offsets = offsets;
+      this.positions = positions;
+      this.waiters = waiters;
+    }
+
+    void complete(Map<TopicPartition, OffsetAndMetadata> committed, Throwable failure) {
+      for (Promise<Map<TopicPartition, OffsetAndMetadata>> waiter : waiters) {
+        if (failure == null) {
+          waiter.complete(committed);
+        } else {
+          waiter.fail(failure);
+        }
+      }
+    }
+  }
+}
@@ -19,6 +19,7 @@ package io.vertx.kafka.client.consumer.impl;
 import io.vertx.core.*;
 import io.vertx.core.impl.ContextInternal;
 import io.vertx.kafka.client.consumer.OffsetAndTimestamp;
+import io.vertx.kafka.client.common.KafkaClientOptions;
 import io.vertx.kafka.client.common.impl.CloseHandler;
 import io.vertx.kafka.client.common.impl.Helper;
 import io.vertx.kafka.client.common.PartitionInfo;
@@ -56,9 +57,20 @@ public class KafkaConsumerImpl<K, V> implements KafkaConsumer<K, V> {
 
   private final KafkaReadStream<K, V> stream;
   private final CloseHandler closeHandler;
+  private final boolean recordReuse;
 
   public KafkaConsumerImpl(KafkaReadStream<K, V> stream) {
+    this(stream, false);
+  }
+
+  public KafkaConsumerImpl(KafkaReadStream<K, V> stream, KafkaClientOptions options) {
+    // records are delivered on a single context only when partitions are not dispatched in parallel
+    this(stream, options.isRecordReuse() && options.getPartitionParallelism() == 0);
+  }
+
+  private KafkaConsumerImpl(KafkaReadStream<K, V> stream, boolean recordReuse) {
     this.stream = stream;
+    this.recordReuse = recordReuse;
     this.closeHandler = new CloseHandler((timeout, ar) -> stream.close().onComplete(ar));
   }
 
@@ -79,8 +91,11 @@ public class KafkaConsumerImpl<K, V> implements KafkaConsumer<K, V> {
 
   @Override
   public KafkaConsumer<K, V> handler(Handler<KafkaConsumerRecord<K, V>> handler) {
-    if (handler != null) {
-      this.stream.handler(record -> handler.handle(new KafkaConsumerRecordImpl<>(record)));
+    if (handler != null && recordReuse) {
+      KafkaConsumerRecordImpl<K, V> flyweight = new KafkaConsumerRecordImpl<>(null, this.stream);
+      this.stream.handler(record -> handler.handle(flyweight.reset(record)));
+    } else if (handler != null) {
+      this.stream.handler(record -> handler.handle(new KafkaConsumerRecordImpl<>(record, this.stream)));
     } else {
       this.stream.handler(null);
     }
@@ -374,7 +389,7 @@ public class KafkaConsumerImpl<K, V> implements KafkaConsumer<K, V> {
   @Override
   public KafkaConsumer<K, V> batchHandler(Handler<KafkaConsumerRecords<K, V>> handler) {
     stream.batchHandler(records -> {
-      handler.handle(new KafkaConsumerRecordsImpl<>(records));
+      handler.handle(new KafkaConsumerRecordsImpl<>(records, this.stream));
     });
     return this;
   }
@@ -387,6 +402,6 @@ public class KafkaConsumerImpl<K, V> implements KafkaConsumer<K, V> {
 
   @Override
   public Future<KafkaConsumerRecords<K, V>> poll(final Duration timeout) {
-    return this.stream.poll(timeout).map(done -> new KafkaConsumerRecordsImpl<>(done));
+    return this.stream.poll(timeout).map(done -> new KafkaConsumerRecordsImpl<>(done, this.stream));
   }
 }
@@ -17,12 +17,13 @@
 package io.vertx.kafka.client.consumer.impl;
 
 import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
+import io.vertx.kafka.client.consumer.KafkaReadStream;
 import io.vertx.kafka.client.producer.KafkaHeader;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.record.TimestampType;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.Collections;
 import java.util.List;
 
@@ -31,7 +32,8 @@ import java.util.List;
  */
 public class KafkaConsumerRecordImpl<K, V> implements KafkaConsumerRecord<K, V> {
 
-  private final ConsumerRecord<K, V> record;
+  private ConsumerRecord<K, V> record;
+  private final KafkaReadStream<K, V> stream;
   private List<KafkaHeader> headers;
 
   /**
@@ -40,7 +42,18 @@ public class KafkaConsumerRecordImpl<K, V> implements KafkaConsumerRecord<K, V>
    * @param record  Kafka consumer record for backing information
    */
   public KafkaConsumerRecordImpl(ConsumerRecord<K, V> record) {
+    this(record, null);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param record  Kafka consumer record for backing information
+   * @param stream  the stream that delivered the record, used for acknowledgements
+   */
+  public KafkaConsumerRecordImpl(ConsumerRecord<K, V> record, KafkaReadStream<K, V> stream) {
     this.record = record;
+    this.stream = stream;
   }
 
   @Override
@@ -78,6 +91,34 @@ public class KafkaConsumerRecordImpl<K, V> implements KafkaConsumerRecord<K, V>
     return this.record.value();
   }
 
+  /**
+   * Make this instance a view of another record, used when records are reused.
+   *
+   * @param record  Kafka consumer record for backing information
+   * @return this instance
+   */
+  KafkaConsumerRecordImpl<K, V> reset(ConsumerRecord<K, V> record) {
+    this.record = record;
+    this.headers = null;
+    return this;
+  }
+
+  @Override
+  public void ack() {
+    if (this.stream == null) {
+      throw new IllegalStateException("Only records delivered by a consumer can be acknowledged");
+    }
+    this.stream.ack(this.record);
+  }
+
+  @Override
+  public void nack() {
+    if (this.stream == null) {
+      throw new IllegalStateException("Only records delivered by a consumer can be acknowledged");
+    }
+    this.stream.nack(this.record);
+  }
+
   @Override
   public ConsumerRecord<K, V> record() {
     return this.record;
@@ -89,15 +130,21 @@ public class KafkaConsumerRecordImpl<K, V> implements KafkaConsumerRecord<K, V>
       if (record.headers() == null) {
         headers = Collections.emptyList();
       } else {
-        headers = new ArrayList<>();
-        for (Header header : record.headers()) {
-          headers.add(KafkaHeader.header(header.key(), header.value()));
-        }
+        headers = new HeaderList(record.headers().toArray());
       }
     }
     return headers;
   }
 
+  @Override
+  public KafkaHeader header(String key) {
+    if (record.headers() == null) {
+      return null;
+    }
+    Header header = record.headers().lastHeader(key);
+    return header != null ? new KafkaHeaderView(header) : null;
+  }
+
   @Override
   public String toString() {
 
@@ -111,4 +158,33 @@ public class KafkaConsumerRecordImpl<K, V> implements KafkaConsumerRecord<K, V>
       ",headers=" + this.record.headers() +
       "}";
   }
+
+  /**
+   * Read-only list of header views created on first access.
+   */
+  private static class HeaderList extends AbstractList<KafkaHeader> {
+
+    private final Header[] headers;
+    private final KafkaHeader[] views;
+
+    HeaderList(Header[] headers) {
+      this.headers = headers;
+      this.views = new KafkaHeader[headers.length];
+    }
+
+    @Override
+    public KafkaHeader get(int index) {
+      KafkaHeader view = views[index];
+      if (view == null) {
+        view = new KafkaHeaderView(headers[index]);
+        views[index] = view;
+      }
+      return view;
+    }
+
+    @Override
+    public int size() {
+      return headers.length;
+    }
+  }
 }
@@ -15,21 +15,44 @@
  */
 package io.vertx.kafka.client.consumer.impl;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.common.impl.Helper;
 import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
 import io.vertx.kafka.client.consumer.KafkaConsumerRecords;
+import io.vertx.kafka.client.consumer.KafkaReadStream;
 
 public class KafkaConsumerRecordsImpl<K, V> implements KafkaConsumerRecords<K, V>{
 
   private final ConsumerRecords<K, V> records;
-  private List<KafkaConsumerRecord<K, V>> list;
+  private final KafkaReadStream<K, V> stream;
+
+  // index of the batch, built on first random access: the records of each partition in iteration order
+  // and the index in the batch of the first record of each partition
+  private List<ConsumerRecord<K, V>>[] slices;
+  private int[] starts;
+  // records wrapped so far, by index in the batch
+  private KafkaConsumerRecord<K, V>[] wrapped;
 
   public KafkaConsumerRecordsImpl(ConsumerRecords<K, V> records) {
+    this(records, null);
+  }
+
+  /**
+   * @param records the Kafka consumer records
+   * @param stream the stream that polled the records, used for the acknowledgements of the wrapped records
+   */
+  public KafkaConsumerRecordsImpl(ConsumerRecords<K, V> records, KafkaReadStream<K, V> stream) {
     this.records = records;
+    this.stream = stream;
   }
   
   @Override
@@ -44,11 +67,54 @@ public class KafkaConsumerRecordsImpl<K, V> implements KafkaConsumerRecords<K, V
 
   @Override
   public KafkaConsumerRecord<K, V> recordAt(int index) {
-    if (list == null) {
-      list = new ArrayList<>(records.count());
-      records.forEach(record -> list.add(new KafkaConsumerRecordImpl<K, V>(record)));
+    if (index < 0 || index >= records.count()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + records.count());
     }
-    return list.get(index);
+    index();
+    int slice = Arrays.binarySearch(starts, index);
+    if (slice < 0) {
+      slice = -slice - 2;
+    } else {
+      // skip the partitions without records starting at the same index
+      while (slice + 1 < starts.length && starts[slice + 1] == index) {
+        slice++;
+      }
+    }
+    return wrap(slice, index - starts[slice]);
+  }
+
+  @Override
+  public Set<TopicPartition> partitions() {
+    return Helper.from(records.partitions());
+  }
+
+  @Override
+  public List<KafkaConsumerRecord<K, V>> records(TopicPartition partition) {
+    org.apache.kafka.common.TopicPartition tp = Helper.to(partition);
+    if (!records.partitions().contains(tp)) {
+      return Collections.emptyList();
+    }
+    index();
+    int slice = 0;
+    for (org.apache.kafka.common.TopicPartition p : records.partitions()) {
+      if (p.equals(tp)) {
+        break;
+      }
+      slice++;
+    }
+    return new Slice(slice);
+  }
+
+  @Override
+  public long firstOffset(TopicPartition partition) {
+    List<ConsumerRecord<K, V>> list = records.records(Helper.to(partition));
+    return list.isEmpty() ? -1L : list.get(0).offset();
+  }
+
+  @Override
+  public long lastOffset(TopicPartition partition) {
+    List<ConsumerRecord<K, V>> list = records.records(Helper.to(partition));
+    return list.isEmpty() ? -1L : list.get(list.size() - 1).offset();
   }
 
   @Override
@@ -56,4 +122,59 @@ public class KafkaConsumerRecordsImpl<K, V> implements KafkaConsumerRecords<K, V
     return records;
   }
 
+  @SuppressWarnings("unchecked")
+  private void index() {
+    if (slices == null) {
+      Set<org.apache.kafka.common.TopicPartition> partitions = records.partitions();
+      List<ConsumerRecord<K, V>>[] slices = new List[partitions.size()];
+      int[] starts = new int[partitions.size()];
+      int slice = 0;
+      int start = 0;
+      for (org.apache.kafka.common.TopicPartition partition : partitions) {
+        slices[slice] = records.records(partition);
+        starts[slice] = start;
+        start += slices[slice].size();
+        slice++;
+      }
+      this.wrapped = new KafkaConsumerRecord[start];
+      this.starts = starts;
+      this.slices = slices;
+    }
+  }
+
+  private KafkaConsumerRecord<K, V> wrap(int slice, int index) {
+    int pos = starts[slice] + index;
+    KafkaConsumerRecord<K, V> record = wrapped[pos];
+    if (record == null) {
+      record = new KafkaConsumerRecordImpl<>(slices[slice].get(index), stream);
+      wrapped[pos] = record;
+    }
+    return record;
+  }
+
+  /**
+   * The records of a partition, sharing the wrapped records with the batch.
+   */
+  private class Slice extends AbstractList<KafkaConsumerRecord<K, V>> {
+
+    private final int slice;
+
+    Slice(int slice) {
+      this.slice = slice;
+    }
+
+    @Override
+    public KafkaConsumerRecord<K, V> get(int index) {
+      if (index < 0 || index >= size()) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+      }
+      return wrap(slice, index);
+    }
+
+    @Override
+    public int size() {
+      return slices[slice].size();
+    }
+  }
+
 }
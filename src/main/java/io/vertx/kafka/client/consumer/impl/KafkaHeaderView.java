@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.consumer.impl;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.kafka.client.common.impl.Helper;
+import io.vertx.kafka.client.producer.KafkaHeader;
+import org.apache.kafka.common.header.Header;
+
+import java.util.Objects;
+
+/**
+ * A read-only view of a Kafka consumer record header, the value is wrapped on first access without being copied.
+ */
+class KafkaHeaderView implements KafkaHeader {
+
+  private final Header header;
+  private Buffer value;
+
+  KafkaHeaderView(Header header) {
+    this.header = header;
+  }
+
+  @Override
+  public String key() {
+    return header.key();
+  }
+
+  @Override
+  public Buffer value() {
+    if (value == null) {
+      byte[] bytes = header.value();
+      if (bytes != null) {
+        value = Helper.wrap(bytes);
+      }
+    }
+    return value;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof KafkaHeader)) return false;
+    KafkaHeader that = (KafkaHeader) o;
+    return Objects.equals(key(), that.key()) && Objects.equals(value(), that.value());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(key(), value());
+  }
+
+  @Override
+  public String toString() {
+    return "KafkaHeader{'" + key() + "': " + value() + '}';
+  }
+}
@@ -22,12 +22,19 @@ import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.impl.CloseFuture;
 import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.kafka.client.common.KafkaClientOptions;
 import io.vertx.kafka.client.common.impl.Helper;
 import io.vertx.kafka.client.common.tracing.ConsumerTracer;
+import io.vertx.kafka.client.consumer.DispatchMode;
+import io.vertx.kafka.client.consumer.IdleStrategy;
 import io.vertx.kafka.client.consumer.KafkaReadStream;
+import io.vertx.kafka.client.consumer.PollerPoolMetrics;
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
 import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
@@ -36,21 +43,30 @@ import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
 import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
 import org.apache.kafka.common.errors.WakeupException;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.BiConsumer;
 import java.util.regex.Pattern;
 
@@ -61,6 +77,7 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
 
   private static final AtomicInteger threadCount = new AtomicInteger(0);
 
+  private final Vertx vertx;
   private final Context context;
   private final AtomicBoolean closed = new AtomicBoolean(true);
   private final Consumer<K, V> consumer;
@@ -68,8 +85,13 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
 
   private final AtomicBoolean consuming = new AtomicBoolean(false);
   private final AtomicLong demand = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicInteger pauses = new AtomicInteger();
   private final AtomicBoolean polling = new AtomicBoolean(false);
-  private Handler<ConsumerRecord<K, V>> recordHandler;
+  private final AtomicBoolean waiting = new AtomicBoolean(false);
+  private final SpscArrayQueue<Batch<K, V>> prefetched;
+  private final Queue<Fence> fences = new ConcurrentLinkedQueue<>();
+  private long fenceEpoch; // Accessed on the poller
+  private volatile Handler<ConsumerRecord<K, V>> recordHandler;
   private Handler<Throwable> exceptionHandler;
   private Iterator<ConsumerRecord<K, V>> current; // Accessed on event loop
   private Handler<ConsumerRecords<K, V>> batchHandler;
@@ -77,13 +99,44 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
   private Handler<Set<TopicPartition>> partitionsAssignedHandler;
   private Duration pollTimeout = Duration.ofSeconds(1);
 
-  private ExecutorService worker;
+  private final String pollerPoolName;
+  private final int pollerPoolSize;
+  private final int dispatchMaxRecords;
+  private final long dispatchMaxTime;
+  private final DispatchMode dispatchMode;
+  private ContextInternal batchContext; // Accessed on event loop
+  private final IdleStrategy idleStrategy;
+  private final long idleMaxBackoff;
+  private long backoff; // Accessed on the poller
+  private volatile long idleSince; // Set on the poller
+  private final AtomicLong idleTime = new AtomicLong();
+  private final AtomicLong emptyPolls = new AtomicLong();
+  private final ContextInternal[] partitionContexts; // null unless records are delivered per partition
+  private final int partitionBufferSize;
+  private final Map<TopicPartition, PartitionQueue<K, V>> partitionQueues = new ConcurrentHashMap<>();
+  // the offsets of the next records to deliver, tracked when the position of the consumer is ahead of them
+  private final Map<TopicPartition, Long> delivered = new ConcurrentHashMap<>();
+  // the queue whose records are being delivered by the current thread, when records are delivered per partition
+  private final ThreadLocal<PartitionQueue<K, V>> delivering = new ThreadLocal<>();
+  private final Map<TopicPartition, PartitionStreamImpl<K, V>> partitionStreams = new ConcurrentHashMap<>();
+  private final Set<TopicPartition> userPaused = new HashSet<>(); // Accessed on the poller
+  private final Set<TopicPartition> blockedPartitions = new HashSet<>(); // Accessed on the poller
+  private final CommitCoalescer commitCoalescer; // null unless commits are asynchronous
+  private final long asyncCommitInterval;
+  private final AtomicInteger inflightCommits = new AtomicInteger();
+  private final AckTracker ackTracker; // null unless acknowledgements are tracked
+  private PollerPool pollerPool;
+  private Executor worker;
+  private Runnable workerShutdown;
 
   private final ConsumerRebalanceListener rebalanceListener =  new ConsumerRebalanceListener() {
 
     @Override
     public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
 
+      // records of revoked partitions will be consumed again by their new owner
+      fence(partitions);
+
       Handler<Set<TopicPartition>> handler = partitionsRevokedHandler;
       if (handler != null) {
         context.runOnContext(v -> {
@@ -106,13 +159,56 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
 
   public KafkaReadStreamImpl(Vertx vertx, Consumer<K, V> consumer, KafkaClientOptions options) {
     ContextInternal ctxInt = ((ContextInternal) vertx.getOrCreateContext()).unwrap();
+    this.vertx = vertx;
     this.consumer = consumer;
     this.context = ctxInt;
     this.tracer = ConsumerTracer.create(ctxInt.tracer(), options);
+    this.pollerPoolName = options.getPollerPoolName();
+    this.pollerPoolSize = options.getPollerPoolSize();
+    this.dispatchMaxRecords = options.getDispatchMaxRecords();
+    this.dispatchMaxTime = options.getDispatchMaxTime();
+    // tracing stores the span of a record in its context
+    this.dispatchMode = this.tracer != null || options.getDispatchMode() == null ? DispatchMode.RECORD : options.getDispatchMode();
+    if (this.pollerPoolName != null) {
+      // pooled consumers poll without blocking and must release the shared threads between empty polls
+      this.idleStrategy = IdleStrategy.BACKOFF;
+    } else {
+      this.idleStrategy = options.getIdleStrategy() == null ? IdleStrategy.IMMEDIATE : options.getIdleStrategy();
+    }
+    this.idleMaxBackoff = TimeUnit.MILLISECONDS.toNanos(options.getIdleMaxBackoff());
+    this.partitionBufferSize = options.getPartitionBufferSize();
+    this.commitCoalescer = options.isAsyncCommit() ? new CommitCoalescer() : null;
+    this.asyncCommitInterval = options.getAsyncCommitInterval();
+    this.ackTracker = options.isTrackAcknowledgements() ? new AckTracker() : null;
+    if (options.getPartitionParallelism() > 0) {
+      this.partitionContexts = new ContextInternal[options.getPartitionParallelism()];
+      for (int i = 0; i < this.partitionContexts.length; i++) {
+        this.partitionContexts[i] = ((VertxInternal) vertx).createEventLoopContext();
+      }
+      // partition queues already buffer records ahead of the dispatch
+      this.prefetched = null;
+    } else {
+      this.partitionContexts = null;
+      this.prefetched = options.getPrefetchDepth() > 0 ? new SpscArrayQueue<>(options.getPrefetchDepth()) : null;
+    }
   }
 
   private <T> void start(java.util.function.BiConsumer<Consumer<K, V>, Promise<T>> task, Handler<AsyncResult<T>> handler) {
-    this.worker = Executors.newSingleThreadExecutor(r -> new Thread(r, "vert.x-kafka-consumer-thread-" + threadCount.getAndIncrement()));
+    if (this.pollerPoolName != null) {
+      CloseFuture closeFuture = new CloseFuture();
+      PollerPool pool = PollerPool.acquire(this.vertx, this.pollerPoolName, this.pollerPoolSize, closeFuture);
+      PollerPool.SerialExecutor executor = pool.executor();
+      this.pollerPool = pool;
+      this.worker = executor;
+      this.workerShutdown = () -> {
+        executor.close();
+        closeFuture.close();
+      };
+    } else {
+      ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "vert.x-kafka-consumer-thread-" + threadCount.getAndIncrement()));
+      this.worker = executor;
+      this.workerShutdown = executor::shutdownNow;
+    }
     this.submitTaskWhenStarted(task, handler);
   }
 
@@ -120,7 +216,7 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
     if (worker == null) {
       throw new IllegalStateException();
     }
-    this.worker.submit(() -> {
+    this.worker.execute(() -> {
       Promise<T> future = null;
       if (handler != null) {
         future = Promise.promise();
@@ -145,46 +241,564 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
     });
   }
 
-  private void pollRecords(Handler<ConsumerRecords<K, V>> handler) {
+  private void pollRecords(Handler<Batch<K, V>> handler) {
       if(this.polling.compareAndSet(false, true)){
-          this.worker.submit(() -> {
-             boolean submitted = false;
-             try {
-                if (!this.closed.get()) {
-                  try {
-                    ConsumerRecords<K, V> records = this.consumer.poll(pollTimeout);
-                    if (records != null && records.count() > 0) {
-                      submitted = true; // sets false only when the iterator is overwritten
-                      this.context.runOnContext(v -> {
-                          this.polling.set(false);
-                          handler.handle(records);
-                      });
-                    }
-                  } catch (WakeupException ignore) {
-                  } catch (Exception e) {
-                    if (exceptionHandler != null) {
-                      exceptionHandler.handle(e);
-                    }
-                  }
-                }
-             } finally {
-                 if(!submitted){
-                     this.context.runOnContext(v -> {
-                         this.polling.set(false);
-                         schedule(0);
-                     });
+          this.worker.execute(() -> this.pollRecordsOnWorker(handler));
+      }
+  }
+
+  private void pollRecordsOnWorker(Handler<Batch<K, V>> handler) {
+     boolean submitted = false;
+     boolean empty = false;
+     boolean routed = false;
+     try {
+        if (!this.closed.get()) {
+          try {
+            ConsumerRecords<K, V> records = this.pollConsumer();
+            if (!this.partitionStreams.isEmpty()) {
+              routed = records != null && records.count() > 0;
+              records = this.route(records);
+            }
+            if (records != null && records.count() > 0) {
+              submitted = true; // sets false only when the iterator is overwritten
+              Batch<K, V> batch = new Batch<>(records, this.fenceEpoch);
+              this.context.runOnContext(v -> {
+                  this.polling.set(false);
+                  handler.handle(batch);
+              });
+            } else {
+              empty = true;
+            }
+          } catch (WakeupException ignore) {
+          } catch (Exception e) {
+            this.pollFailure(e);
+          }
+        }
+     } finally {
+         if (!submitted) {
+             if (empty && this.canPoll()) {
+                 // poll again without going through the event loop
+                 if (routed) {
+                     this.worker.execute(() -> this.pollRecordsOnWorker(handler));
+                 } else {
+                     this.idle(() -> this.pollRecordsOnWorker(handler));
                  }
+             } else {
+                 this.context.runOnContext(v -> {
+                     this.polling.set(false);
+                     schedule(0);
+                 });
              }
-          });
+         }
+     }
+  }
+
+  /**
+   * Poll the consumer and update the idle counters, called on the poller.
+   */
+  private ConsumerRecords<K, V> pollConsumer() {
+    long now = System.nanoTime();
+    ConsumerRecords<K, V> records = this.consumer.poll(this.pollerPool != null ? Duration.ZERO : pollTimeout);
+    if (records != null && records.count() > 0) {
+      long since = this.idleSince;
+      if (since != 0L) {
+        this.idleSince = 0L;
+        this.idleTime.addAndGet(System.nanoTime() - since);
       }
+      this.backoff = 0L;
+    } else {
+      this.emptyPolls.incrementAndGet();
+      if (this.idleSince == 0L) {
+        this.idleSince = now;
+      }
+    }
+    return records;
+  }
+
+  /**
+   * Run {@code task} on the poller after an empty poll according to the idle strategy, called on the poller.
+   */
+  private void idle(Runnable task) {
+    if (this.idleStrategy == IdleStrategy.IMMEDIATE) {
+      this.worker.execute(task);
+      return;
+    }
+    long delay = this.backoff == 0L ? TimeUnit.MILLISECONDS.toNanos(1) : Math.min(this.backoff * 2, this.idleMaxBackoff);
+    this.backoff = delay;
+    if (this.idleStrategy == IdleStrategy.PARK) {
+      LockSupport.parkNanos(delay);
+      this.worker.execute(task);
+    } else {
+      this.vertx.setTimer(Math.max(1L, TimeUnit.NANOSECONDS.toMillis(delay)), id -> {
+        if (!this.closed.get()) {
+          this.worker.execute(task);
+        }
+      });
+    }
+  }
+
+  /**
+   * Start polling ahead of the dispatch unless the prefetch ring is full, called on the event loop.
+   */
+  private void prefetch() {
+    if (!this.prefetched.isFull() && this.polling.compareAndSet(false, true)) {
+      this.worker.execute(this::prefetchRecords);
+    }
+  }
+
+  // Runs on the poller, keeps polling as long as the prefetch ring has room
+  private void prefetchRecords() {
+    boolean polled = false;
+    boolean empty = false;
+    boolean full = false;
+    try {
+      if (!this.closed.get()) {
+        try {
+          ConsumerRecords<K, V> records = this.pollConsumer();
+          if (records == null || records.count() == 0) {
+            empty = true;
+          }
+          if (!this.partitionStreams.isEmpty()) {
+            records = this.route(records);
+          }
+          if (records != null && records.count() > 0) {
+            if (this.prefetched.offer(new Batch<>(records, this.fenceEpoch))) {
+              if (this.waiting.getAndSet(false)) {
+                this.context.runOnContext(v -> this.drain());
+              }
+            } else {
+              // the ring is full, the records are polled again once the event loop made room
+              for (TopicPartition partition : records.partitions()) {
+                this.consumer.seek(partition, records.records(partition).get(0).offset());
+              }
+              full = true;
+            }
+          }
+          polled = true;
+        } catch (WakeupException ignore) {
+        } catch (Exception e) {
+          this.pollFailure(e);
+        }
+      }
+    } finally {
+      if (!polled || (empty && !this.canPoll())) {
+        // the stream does not want records anymore, the event loop polls again when it does
+        this.context.runOnContext(v -> {
+          this.polling.set(false);
+          schedule(0);
+        });
+      } else if (empty) {
+        this.idle(this::prefetchRecords);
+      } else if (!full && !this.prefetched.isFull()) {
+        this.worker.execute(this::prefetchRecords);
+      } else {
+        this.polling.set(false);
+        // the event loop may have made room before polling was reset
+        if (!this.prefetched.isFull() && this.polling.compareAndSet(false, true)) {
+          this.worker.execute(this::prefetchRecords);
+        } else if (!this.partitionStreams.isEmpty()) {
+          // keep polling for the partition streams if the stream is blocked
+          this.context.runOnContext(v -> this.schedule(0));
+        }
+      }
+    }
+  }
+
+  // Called on the event loop when a batch is prefetched while the dispatch was waiting for one
+  private void drain() {
+    if (this.canPoll()) {
+      run(this.recordHandler);
+    }
+  }
+
+  /**
+   * Discard the records of the given partitions polled so far and not yet dispatched, called on the poller
+   * when the position of these partitions changes.
+   */
+  private void fence(Collection<TopicPartition> partitions) {
+    if (this.ackTracker != null) {
+      this.ackTracker.reset(partitions);
+    }
+    this.delivered.keySet().removeAll(partitions);
+    this.clearPartitionStreams(partitions, false);
+    if (this.partitionContexts != null) {
+      this.discardPartitionQueues(partitions, false);
+    } else if (!partitions.isEmpty()) {
+      Fence fence = new Fence(new HashSet<>(partitions), false);
+      fence.epoch = ++this.fenceEpoch;
+      this.fences.add(fence);
+    }
+  }
+
+  /**
+   * Discard the records of the given partitions not yet dispatched, called on the event loop before seeking
+   * them. The fence keeps discarding prefetched records until it is sealed by the poller after the seek.
+   */
+  private Fence seekFence(Set<TopicPartition> partitions) {
+    Fence fence = new Fence(partitions, true);
+    if (this.partitionContexts == null) {
+      this.fences.add(fence);
+      this.discard(partitions);
+    }
+    return fence;
+  }
+
+  // Called on the poller after the seek of the fenced partitions
+  private void seal(Fence fence) {
+    if (this.ackTracker != null) {
+      if (fence.rewind >= 0L) {
+        for (TopicPartition partition : fence.partitions) {
+          this.ackTracker.rewind(partition, fence.rewind);
+        }
+      } else {
+        this.ackTracker.reset(fence.partitions);
+      }
+    }
+    this.delivered.keySet().removeAll(fence.partitions);
+    this.clearPartitionStreams(fence.partitions, true);
+    if (this.partitionContexts != null) {
+      this.discardPartitionQueues(fence.partitions, true);
+    } else {
+      fence.epoch = ++this.fenceEpoch;
+    }
+  }
+
+  /**
+   * Make {@code batch} the current batch, after removing the records of partitions fenced since it was polled.
+   */
+  private ConsumerRecords<K, V> accept(Batch<K, V> batch) {
+    ConsumerRecords<K, V> records = batch.records;
+    Set<TopicPartition> fenced = null;
+    for (Iterator<Fence> it = this.fences.iterator(); it.hasNext(); ) {
+      Fence fence = it.next();
+      if (fence.epoch <= batch.epoch) {
+        // the batch was polled after this fence
+        it.remove();
+      } else {
+        if (fenced == null) {
+          fenced = new HashSet<>();
+        }
+        fenced.addAll(fence.partitions);
+        fence.applied = true;
+      }
+    }
+    if (fenced != null) {
+      Map<TopicPartition, List<ConsumerRecord<K, V>>> kept = new HashMap<>();
+      for (TopicPartition partition : records.partitions()) {
+        if (!fenced.contains(partition)) {
+          kept.put(partition, records.records(partition));
+        }
+      }
+      records = new ConsumerRecords<>(kept);
+    }
+    this.current = records.iterator();
+    if (this.dispatchMode == DispatchMode.BATCH) {
+      this.batchContext = ((ContextInternal) this.context).duplicate();
+    }
+    return records;
+  }
+
+  /**
+   * Apply to the current batch the fences added by the poller since it was accepted.
+   */
+  private void applyFences() {
+    for (Fence fence : this.fences) {
+      if (!fence.applied) {
+        fence.applied = true;
+        this.discard(fence.partitions);
+      }
+    }
+  }
+
+  /**
+   * Remove the records of the given partitions from the current batch, called on the event loop.
+   */
+  private void discard(Set<TopicPartition> partitions) {
+    if (this.current != null && this.current.hasNext()) {
+      List<ConsumerRecord<K, V>> kept = new ArrayList<>();
+      while (this.current.hasNext()) {
+        ConsumerRecord<K, V> record = this.current.next();
+        if (!partitions.contains(new TopicPartition(record.topic(), record.partition()))) {
+          kept.add(record);
+        }
+      }
+      this.current = kept.iterator();
+    }
+  }
+
+  // Runs on the poller, polls continuously and hands the records to the queue of their partition
+  private void pollPartitions() {
+    if (this.closed.get()) {
+      return;
+    }
+    boolean empty = true;
+    try {
+      ConsumerRecords<K, V> records = this.pollConsumer();
+      if (records != null && records.count() > 0) {
+        empty = false;
+        Handler<ConsumerRecords<K, V>> handler = this.batchHandler;
+        if (handler != null) {
+          ConsumerRecords<K, V> batch = records;
+          this.context.runOnContext(v -> handler.handle(batch));
+        }
+        if (!this.partitionStreams.isEmpty()) {
+          records = this.route(records);
+        }
+        for (TopicPartition partition : records.partitions()) {
+          PartitionQueue<K, V> queue = this.partitionQueues.get(partition);
+          if (queue == null) {
+            queue = this.createPartitionQueue(partition);
+          }
+          queue.add(records.records(partition));
+          this.schedule(queue);
+        }
+      }
+      this.applyBackpressure();
+    } catch (WakeupException ignore) {
+    } catch (Exception e) {
+      this.pollFailure(e);
+    } finally {
+      if (!this.closed.get()) {
+        if (empty) {
+          this.idle(this::pollPartitions);
+        } else {
+          this.worker.execute(this::pollPartitions);
+        }
+      }
+    }
+  }
+
+  /**
+   * Create the queue of a partition, starting with the demand of the stream, called on the poller.
+   */
+  private PartitionQueue<K, V> createPartitionQueue(TopicPartition partition) {
+    synchronized (this.partitionQueues) {
+      return this.partitionQueues.computeIfAbsent(partition, tp -> {
+        PartitionQueue<K, V> queue = new PartitionQueue<>(tp, this.partitionContexts[Math.floorMod(tp.hashCode(), this.partitionContexts.length)]);
+        queue.demand.set(this.demand.get());
+        return queue;
+      });
+    }
+  }
+
+  /**
+   * Pause the partitions whose queue is full and resume the partitions whose queue has been half drained, called
+   * on the poller.
+   */
+  private void applyBackpressure() {
+    List<TopicPartition> paused = new ArrayList<>();
+    List<TopicPartition> resumed = new ArrayList<>();
+    for (PartitionQueue<K, V> queue : this.partitionQueues.values()) {
+      // a paused partition keeps its buffered records but does not fetch more
+      this.applyBackpressure(queue, queue.demand.get() > 0L, paused, resumed);
+    }
+    for (PartitionStreamImpl<K, V> stream : this.partitionStreams.values()) {
+      // a paused partition stream keeps its buffered records but does not fetch more
+      this.applyBackpressure(stream.queue, stream.wantsRecords(), paused, resumed);
+    }
+    if (!paused.isEmpty()) {
+      this.consumer.pause(paused);
+    }
+    if (!resumed.isEmpty()) {
+      this.consumer.resume(resumed);
+    }
+  }
+
+  private void applyBackpressure(PartitionQueue<K, V> queue, boolean flowing, List<TopicPartition> paused, List<TopicPartition> resumed) {
+    int size = queue.size();
+    if (!queue.paused && (size >= this.partitionBufferSize || (!flowing && size > 0))) {
+      queue.paused = true;
+      paused.add(queue.partition);
+    } else if (queue.paused && flowing && size <= this.partitionBufferSize / 2) {
+      queue.paused = false;
+      if (!this.userPaused.contains(queue.partition)) {
+        resumed.add(queue.partition);
+      }
+    }
+  }
+
+  /**
+   * Hand the records of partitions having a partition stream to these streams, called on the poller.
+   *
+   * @return the other records
+   */
+  private ConsumerRecords<K, V> route(ConsumerRecords<K, V> records) {
+    if (records != null && records.count() > 0) {
+      Map<TopicPartition, List<ConsumerRecord<K, V>>> kept = null;
+      for (TopicPartition partition : records.partitions()) {
+        PartitionStreamImpl<K, V> stream = this.partitionStreams.get(partition);
+        if (stream != null) {
+          stream.queue.add(records.records(partition));
+          stream.schedule();
+          if (kept == null) {
+            kept = new HashMap<>();
+            for (TopicPartition other : records.partitions()) {
+              if (!this.partitionStreams.containsKey(other)) {
+                kept.put(other, records.records(other));
+              }
+            }
+          }
+        }
+      }
+      if (kept != null) {
+        records = new ConsumerRecords<>(kept);
+      }
+    }
+    this.applyBackpressure();
+    return records;
+  }
+
+  /**
+   * Discard the records buffered by the partition streams of the given partitions, called on the poller. The
+   * partition streams of partitions no longer assigned are removed and ended.
+   */
+  private void clearPartitionStreams(Collection<TopicPartition> partitions, boolean assigned) {
+    if (!this.partitionStreams.isEmpty()) {
+      for (TopicPartition partition : partitions) {
+        PartitionStreamImpl<K, V> stream = assigned ? this.partitionStreams.get(partition) : this.partitionStreams.remove(partition);
+        if (stream != null) {
+          stream.queue.clear();
+          stream.queue.resetDelivered();
+          if (!assigned) {
+            stream.queue.paused = false;
+            stream.end();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Discard the queues of the given partitions, called on the poller.
+   *
+   * @param assigned whether the partitions remain assigned, in which case the partitions paused because their queue
+   *                 was full are resumed
+   */
+  private void discardPartitionQueues(Collection<TopicPartition> partitions, boolean assigned) {
+    List<TopicPartition> resumed = null;
+    for (TopicPartition partition : partitions) {
+      PartitionQueue<K, V> queue;
+      synchronized (this.partitionQueues) {
+        queue = this.partitionQueues.remove(partition);
+        if (queue != null && assigned) {
+          // the partition keeps its demand
+          PartitionQueue<K, V> fresh = new PartitionQueue<>(partition, queue.context);
+          fresh.demand.set(queue.demand.get());
+          this.partitionQueues.put(partition, fresh);
+        }
+      }
+      if (queue != null) {
+        queue.clear();
+        if (assigned && queue.paused && !this.userPaused.contains(partition)) {
+          if (resumed == null) {
+            resumed = new ArrayList<>();
+          }
+          resumed.add(partition);
+        }
+      }
+    }
+    if (resumed != null) {
+      this.consumer.resume(resumed);
+    }
+  }
+
+  /**
+   * Schedule the delivery of the records of {@code queue} on its context.
+   */
+  private void schedule(PartitionQueue<K, V> queue) {
+    if (this.consuming.get()
+        && queue.demand.get() > 0L
+        && this.recordHandler != null
+        && !queue.isEmpty()
+        && queue.schedule()) {
+      queue.context.runOnContext(v -> this.dispatch(queue));
+    }
+  }
+
+  // Runs on the context of the queue
+  private void dispatch(PartitionQueue<K, V> queue) {
+    Handler<ConsumerRecord<K, V>> handler = this.recordHandler;
+    long granted = 0L;
+    if (!this.closed.get() && handler != null) {
+      granted = reserveDemand(queue.demand, this.dispatchMaxRecords);
+    }
+    if (granted > 0L) {
+      long unused;
+      this.delivering.set(queue);
+      try {
+        unused = this.deliverQueued(queue, handler, granted, queue.pauses);
+      } finally {
+        this.delivering.set(null);
+      }
+      if (unused > 0L) {
+        releaseDemand(queue.demand, unused);
+      }
+    }
+    queue.unschedule();
+    if (granted > 0L) {
+      this.schedule(queue);
+    }
+  }
+
+  /**
+   * Deliver up to {@code granted} records of {@code queue}, called on the context of the queue.
+   *
+   * @param pauses the pause counter of the stream the records are delivered for
+   * @return the reserved demand left unused
+   */
+  long deliverQueued(PartitionQueue<K, V> queue, Handler<ConsumerRecord<K, V>> handler, long granted, AtomicInteger pauses) {
+    int pauseCount = pauses.get();
+    long deadline = this.dispatchMaxTime > 0L ? System.nanoTime() + this.dispatchMaxTime : 0L;
+    ContextInternal batchContext = this.dispatchMode == DispatchMode.BATCH ? queue.context.duplicate() : null;
+    long count = 0L;
+    ConsumerRecord<K, V> next;
+    while (count < granted && (next = queue.poll()) != null) {
+      this.deliver(queue.context, batchContext, handler, next);
+      queue.delivered(next.offset());
+      count++;
+      if (pauses.get() != pauseCount) {
+        // the handler paused the stream, the remaining reserved demand is void
+        return 0L;
+      } else if (deadline != 0L && System.nanoTime() - deadline >= 0L) {
+        break;
+      }
+    }
+    return granted - count;
+  }
+
+  /**
+   * Deliver a record to the handler according to the dispatch mode.
+   */
+  private void deliver(ContextInternal context, ContextInternal batchContext, Handler<ConsumerRecord<K, V>> handler, ConsumerRecord<K, V> record) {
+    if (this.ackTracker != null) {
+      this.ackTracker.track(record);
+    }
+    switch (this.dispatchMode) {
+      case BATCH:
+        batchContext.emit(record, handler);
+        break;
+      case CONSUMER:
+        context.emit(record, handler);
+        break;
+      default:
+        ContextInternal ctx = context.duplicate();
+        ctx.emit(v -> this.tracedHandler(ctx, handler).handle(record));
+        break;
+    }
+  }
+
+  /**
+   * @return whether the stream or one of its partition streams wants records
+   */
+  private boolean canPoll() {
+    return this.consuming.get()
+      && ((this.demand.get() > 0L && this.recordHandler != null) || !this.partitionStreams.isEmpty());
   }
 
   private void schedule(long delay) {
     Handler<ConsumerRecord<K, V>> handler = this.recordHandler;
 
-    if (this.consuming.get()
-        && this.demand.get() > 0L
-        && handler != null) {
+    if (this.canPoll()) {
 
       this.context.runOnContext(v1 -> {
         if (delay > 0) {
@@ -203,45 +817,225 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
       return;
     }
 
-    if (this.current == null || !this.current.hasNext()) {
+    if (this.partitionContexts != null) {
+      if (this.polling.compareAndSet(false, true)) {
+        this.worker.execute(this::pollPartitions);
+      }
+      for (PartitionQueue<K, V> queue : this.partitionQueues.values()) {
+        this.schedule(queue);
+      }
+      return;
+    }
 
-      this.pollRecords(records -> {
+    if (this.current != null && !this.fences.isEmpty()) {
+      this.applyFences();
+    }
 
-        if (records != null && records.count() > 0) {
-          this.current = records.iterator();
-          if (batchHandler != null) {
-            batchHandler.handle(records);
+    if (this.current == null || !this.current.hasNext()) {
+
+      if (this.prefetched != null) {
+        Batch<K, V> batch = this.prefetched.poll();
+        if (batch == null) {
+          // wait for the poller to signal the next batch
+          this.waiting.set(true);
+          batch = this.prefetched.poll();
+          if (batch == null) {
+            this.prefetch();
+            return;
           }
-          this.schedule(0);
-        } else {
-          this.schedule(1);
+          this.waiting.set(false);
         }
+        this.prefetch();
+        ConsumerRecords<K, V> records = this.accept(batch);
+        if (batchHandler != null) {
+          batchHandler.handle(records);
+        }
+        this.schedule(0);
+        return;
+      }
+
+      this.pollRecords(batch -> {
+        ConsumerRecords<K, V> records = this.accept(batch);
+        if (batchHandler != null) {
+          batchHandler.handle(records);
+        }
+        this.schedule(0);
       });
 
+    } else if (handler != null) {
+
+      // to honor the Vert.x ReadStream contract, handler should not be called if stream is paused
+      long granted = reserveDemand(this.demand, this.dispatchMaxRecords);
+      if (granted == 0L) {
+        this.pollBlocked();
+        return;
+      }
+
+      int pauseCount = this.pauses.get();
+      long deadline = this.dispatchMaxTime > 0L ? System.nanoTime() + this.dispatchMaxTime : 0L;
+      long count = 0L;
+      boolean track = this.isPositionAhead();
+      TopicPartition partition = null;
+      while (count < granted && this.current.hasNext()) {
+        ConsumerRecord<K, V> next = this.current.next();
+        this.deliver((ContextInternal) this.context, this.batchContext, handler, next);
+        if (track) {
+          if (partition == null || partition.partition() != next.partition() || !partition.topic().equals(next.topic())) {
+            partition = new TopicPartition(next.topic(), next.partition());
+          }
+          this.delivered.put(partition, next.offset() + 1);
+        }
+        count++;
+        if (this.pauses.get() != pauseCount) {
+          // the handler paused the stream, the remaining reserved demand is void
+          granted = count;
+        } else if (deadline != 0L && System.nanoTime() - deadline >= 0L) {
+          break;
+        }
+      }
+      if (count < granted) {
+        releaseDemand(this.demand, granted - count);
+      }
+      this.schedule(0);
     } else {
+      this.pollBlocked();
+    }
+  }
 
-      int count = 0;
-      out:
-      while (this.current.hasNext() && count++ < 10) {
-
-        // to honor the Vert.x ReadStream contract, handler should not be called if stream is paused
-        while (true) {
-          long v = this.demand.get();
-          if (v <= 0L) {
-            break out;
-          } else if (v == Long.MAX_VALUE || this.demand.compareAndSet(v, v - 1)) {
-            break;
+  /**
+   * @return whether the consumer polls ahead of the delivery of the records or buffers records for partition
+   *         streams, its position is then ahead of the records not delivered yet
+   */
+  private boolean isPositionAhead() {
+    return this.prefetched != null || !this.partitionStreams.isEmpty();
+  }
+
+  /**
+   * Keep polling for the partition streams while this stream cannot take the records it has buffered, called on
+   * the event loop.
+   */
+  private void pollBlocked() {
+    if (!this.partitionStreams.isEmpty() && this.polling.compareAndSet(false, true)) {
+      this.worker.execute(this::pollBlockedOnWorker);
+    }
+  }
+
+  private boolean isBlocked() {
+    return this.recordHandler == null || this.demand.get() <= 0L;
+  }
+
+  // Runs on the poller, the partitions without a partition stream are paused until this stream takes records again
+  private void pollBlockedOnWorker() {
+    boolean empty = true;
+    try {
+      if (!this.closed.get() && this.isBlocked()) {
+        List<TopicPartition> paused = new ArrayList<>();
+        for (TopicPartition partition : this.consumer.assignment()) {
+          if (!this.partitionStreams.containsKey(partition) && !this.userPaused.contains(partition) && this.blockedPartitions.add(partition)) {
+            paused.add(partition);
+          }
+        }
+        if (!paused.isEmpty()) {
+          this.consumer.pause(paused);
+        }
+        ConsumerRecords<K, V> records = this.pollConsumer();
+        if (records != null && records.count() > 0) {
+          empty = false;
+          records = this.route(records);
+          // records fetched before the partitions were paused, they are polled again once the stream is unblocked
+          for (TopicPartition partition : records.partitions()) {
+            this.consumer.seek(partition, records.records(partition).get(0).offset());
           }
         }
+      }
+    } catch (WakeupException ignore) {
+    } catch (Exception e) {
+      this.pollFailure(e);
+    } finally {
+      if (!this.closed.get() && this.isBlocked() && !this.partitionStreams.isEmpty()) {
+        if (empty) {
+          this.idle(this::pollBlockedOnWorker);
+        } else {
+          this.worker.execute(this::pollBlockedOnWorker);
+        }
+      } else {
+        this.unblock();
+        this.context.runOnContext(v -> {
+          this.polling.set(false);
+          schedule(0);
+        });
+      }
+    }
+  }
 
-        ConsumerRecord<K, V> next = this.current.next();
-        ContextInternal ctx = ((ContextInternal)this.context).duplicate();
-        ctx.emit(v -> this.tracedHandler(ctx, handler).handle(next));
+  /**
+   * Resume the partitions paused while the stream was blocked, called on the poller.
+   */
+  private void unblock() {
+    if (!this.blockedPartitions.isEmpty() && !this.closed.get()) {
+      List<TopicPartition> resumed = new ArrayList<>();
+      Set<TopicPartition> assignment = this.consumer.assignment();
+      for (TopicPartition partition : this.blockedPartitions) {
+        if (assignment.contains(partition) && !this.userPaused.contains(partition)) {
+          resumed.add(partition);
+        }
       }
-      this.schedule(0);
+      this.blockedPartitions.clear();
+      if (!resumed.isEmpty()) {
+        this.consumer.resume(resumed);
+      }
+    }
+  }
+
+  /**
+   * Report a failure of the poller to the stream and its partition streams, called on the poller.
+   */
+  private void pollFailure(Exception e) {
+    Handler<Throwable> handler = this.exceptionHandler;
+    if (handler != null) {
+      handler.handle(e);
+    }
+    for (PartitionStreamImpl<K, V> stream : this.partitionStreams.values()) {
+      stream.fail(e);
     }
   }
 
+  /**
+   * Reserve demand for up to {@code max} records at once.
+   *
+   * @return the number of records that can be delivered, {@code 0} when the stream is paused
+   */
+  static long reserveDemand(AtomicLong demand, long max) {
+    while (true) {
+      long v = demand.get();
+      if (v <= 0L) {
+        return 0L;
+      } else if (v == Long.MAX_VALUE) {
+        return max;
+      }
+      long n = Math.min(v, max);
+      if (demand.compareAndSet(v, v - n)) {
+        return n;
+      }
+    }
+  }
+
+  /**
+   * Give back reserved demand that was not used.
+   */
+  static void releaseDemand(AtomicLong demand, long amount) {
+    demand.updateAndGet(val -> {
+      if (val == Long.MAX_VALUE) {
+        return val;
+      }
+      val += amount;
+      if (val < 0L) {
+        val = Long.MAX_VALUE;
+      }
+      return val;
+    });
+  }
+
   private Handler<ConsumerRecord<K, V>> tracedHandler(Context ctx, Handler<ConsumerRecord<K, V>> handler) {
     return this.tracer == null ? handler :
       rec -> {
@@ -275,6 +1069,7 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
   public Future<Void> pause(Set<TopicPartition> topicPartitions) {
     return this.submitTask2((consumer, future) -> {
       consumer.pause(topicPartitions);
+      this.userPaused.addAll(topicPartitions);
       if (future != null) {
         future.complete();
       }
@@ -284,7 +1079,9 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
   @Override
   public Future<Set<TopicPartition>> paused() {
     return this.submitTask2((consumer, future) -> {
-      Set<TopicPartition> result = consumer.paused();
+      // the partitions the stream pauses for its own backpressure are not reported
+      Set<TopicPartition> result = new HashSet<>(consumer.paused());
+      result.retainAll(this.userPaused);
       if (future != null) {
         future.complete(result);
       }
@@ -294,13 +1091,36 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
   @Override
   public Future<Void> resume(Set<TopicPartition> topicPartitions) {
     return this.submitTask2((consumer, future) -> {
-      consumer.resume(topicPartitions);
+      this.userPaused.removeAll(topicPartitions);
+      List<TopicPartition> resumed = new ArrayList<>();
+      for (TopicPartition partition : topicPartitions) {
+        // the partitions the stream pauses for its own backpressure are resumed by the stream
+        if (!this.isPausedInternally(partition)) {
+          resumed.add(partition);
+        }
+      }
+      consumer.resume(resumed);
       if (future != null) {
         future.complete();
       }
     });
   }
 
+  /**
+   * @return whether the stream pauses the partition because it cannot take its records, called on the poller
+   */
+  private boolean isPausedInternally(TopicPartition partition) {
+    if (this.blockedPartitions.contains(partition)) {
+      return true;
+    }
+    PartitionQueue<K, V> queue = this.partitionQueues.get(partition);
+    if (queue != null && queue.paused) {
+      return true;
+    }
+    PartitionStreamImpl<K, V> stream = this.partitionStreams.get(partition);
+    return stream != null && stream.queue.paused;
+  }
+
   @Override
   public Future<OffsetAndMetadata> committed(TopicPartition topicPartition) {
     return this.submitTask2((consumer, future) -> {
@@ -315,10 +1135,14 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
   public Future<Void> seekToEnd(Set<TopicPartition> topicPartitions) {
     Promise<Void> promise = Promise.promise();
     this.context.runOnContext(r -> {
-      current = null;
+      Fence fence = this.seekFence(topicPartitions);
 
       this.submitTask((consumer, future) -> {
-        consumer.seekToEnd(topicPartitions);
+        try {
+          consumer.seekToEnd(topicPartitions);
+        } finally {
+          this.seal(fence);
+        }
         if (future != null) {
           future.complete();
         }
@@ -331,10 +1155,14 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
   public Future<Void> seekToBeginning(Set<TopicPartition> topicPartitions) {
     Promise<Void> promise = Promise.promise();
     this.context.runOnContext(r -> {
-      current = null;
+      Fence fence = this.seekFence(topicPartitions);
 
       this.submitTask((consumer, future) -> {
-        consumer.seekToBeginning(topicPartitions);
+        try {
+          consumer.seekToBeginning(topicPartitions);
+        } finally {
+          this.seal(fence);
+        }
         if (future != null) {
           future.complete();
         }
@@ -345,12 +1173,26 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
 
   @Override
   public Future<Void> seek(TopicPartition topicPartition, long offset) {
+    return this.seek(topicPartition, offset, false);
+  }
+
+  /**
+   * Seek a partition, when {@code rewind} is {@code true} the acknowledgements tracked below the offset are kept.
+   */
+  private Future<Void> seek(TopicPartition topicPartition, long offset, boolean rewind) {
     Promise<Void> promise = Promise.promise();
     this.context.runOnContext(r -> {
-      current = null;
+      Fence fence = this.seekFence(Collections.singleton(topicPartition));
+      if (rewind) {
+        fence.rewind = offset;
+      }
 
       this.submitTask((consumer, future) -> {
-        consumer.seek(topicPartition, offset);
+        try {
+          consumer.seek(topicPartition, offset);
+        } finally {
+          this.seal(fence);
+        }
         if (future != null) {
           future.complete();
         }
@@ -363,10 +1205,14 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
   public Future<Void> seek(TopicPartition topicPartition, OffsetAndMetadata offsetAndMetadata) {
     Promise<Void> promise = Promise.promise();
     this.context.runOnContext(r -> {
-      current = null;
+      Fence fence = this.seekFence(Collections.singleton(topicPartition));
 
       this.submitTask((consumer, future) -> {
-        consumer.seek(topicPartition, offsetAndMetadata);
+        try {
+          consumer.seek(topicPartition, offsetAndMetadata);
+        } finally {
+          this.seal(fence);
+        }
         if (future != null) {
           future.complete();
         }
@@ -432,7 +1278,9 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
   @Override
   public Future<Void> unsubscribe() {
     return this.submitTask2((consumer, future) -> {
+      Set<TopicPartition> unassigned = new HashSet<>(consumer.assignment());
       consumer.unsubscribe();
+      this.fence(unassigned);
       if (future != null) {
         future.complete();
       }
@@ -454,7 +1302,10 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
     Promise<Void> promise = Promise.promise();
 
     BiConsumer<Consumer<K, V>, Promise<Void>> handler = (consumer, future) -> {
+      Set<TopicPartition> unassigned = new HashSet<>(consumer.assignment());
+      unassigned.removeAll(partitions);
       consumer.assign(partitions);
+      this.fence(unassigned);
       this.startConsuming();
       if (future != null) {
         future.complete();
@@ -499,20 +1350,150 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
 
   @Override
   public Future<Map<TopicPartition, OffsetAndMetadata>> commit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+    if (this.commitCoalescer != null) {
+      return this.commitAsync(offsets);
+    }
     return this.submitTask2((consumer, future) -> {
 
-      if (offsets == null) {
-        consumer.commitSync();
-      } else {
+      Map<TopicPartition, OffsetAndMetadata> committed = offsets;
+      if (offsets != null) {
         consumer.commitSync(offsets);
+      } else if (this.ackTracker != null) {
+        committed = this.ackTracker.watermarks();
+        consumer.commitSync(committed);
+      } else if (this.partitionContexts != null || this.isPositionAhead()) {
+        // the position is ahead of the records still queued, commit what has been delivered instead
+        committed = this.deliveredOffsets();
+        consumer.commitSync(committed);
+      } else {
+        consumer.commitSync();
       }
       if (future != null) {
-        future.complete(offsets);
+        future.complete(committed);
       }
 
     });
   }
 
+  private Future<Map<TopicPartition, OffsetAndMetadata>> commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+    Promise<Map<TopicPartition, OffsetAndMetadata>> promise = ((ContextInternal) this.context).promise();
+    if (this.commitCoalescer.add(offsets, promise)) {
+      if (this.asyncCommitInterval > 0L) {
+        this.vertx.setTimer(this.asyncCommitInterval, id -> this.submitTask((consumer, future) -> this.flushCommits(), null));
+      } else {
+        this.submitTask((consumer, future) -> this.flushCommits(), null);
+      }
+    }
+    return promise.future();
+  }
+
+  /**
+   * Send the pending commit requests as a single asynchronous commit, called on the poller.
+   */
+  private void flushCommits() {
+    CommitCoalescer.Batch batch = this.commitCoalescer.take();
+    if (batch == null) {
+      return;
+    }
+    Map<TopicPartition, OffsetAndMetadata> offsets = batch.offsets;
+    try {
+      if (batch.positions) {
+        CommitCoalescer.merge(offsets, this.currentOffsets());
+      }
+      this.inflightCommits.incrementAndGet();
+      this.consumer.commitAsync(offsets, (committed, err) -> {
+        this.inflightCommits.decrementAndGet();
+        batch.complete(offsets, err);
+      });
+    } catch (Exception e) {
+      this.inflightCommits.decrementAndGet();
+      batch.complete(null, e);
+      return;
+    }
+    this.awaitCommits();
+  }
+
+  /**
+   * Commit callbacks are only invoked by the consumer, make sure they are when the stream is not polling.
+   */
+  private void awaitCommits() {
+    long delay = Math.max(1L, this.pollTimeout.toMillis());
+    this.vertx.setTimer(delay, id -> {
+      if (this.inflightCommits.get() > 0 && !this.closed.get()) {
+        this.submitTask((consumer, future) -> {
+          if (this.inflightCommits.get() > 0) {
+            // invokes the callbacks of completed commits without blocking
+            consumer.commitSync(Collections.emptyMap());
+            if (this.inflightCommits.get() > 0) {
+              this.awaitCommits();
+            }
+          }
+        }, null);
+      }
+    });
+  }
+
+  /**
+   * @return the offsets committed by {@link #commit()}
+   */
+  private Map<TopicPartition, OffsetAndMetadata> currentOffsets() {
+    if (this.ackTracker != null) {
+      return this.ackTracker.watermarks();
+    } else if (this.partitionContexts != null || this.isPositionAhead()) {
+      return this.deliveredOffsets();
+    } else {
+      return this.positions();
+    }
+  }
+
+  /**
+   * @return the positions of the assigned partitions whose position is known
+   */
+  private Map<TopicPartition, OffsetAndMetadata> positions() {
+    Map<TopicPartition, OffsetAndMetadata> positions = new HashMap<>();
+    for (TopicPartition partition : this.consumer.assignment()) {
+      try {
+        positions.put(partition, new OffsetAndMetadata(this.consumer.position(partition, Duration.ZERO)));
+      } catch (TimeoutException ignore) {
+        // the position is not known yet, there is nothing to commit
+      }
+    }
+    return positions;
+  }
+
+  /**
+   * @return the offsets of the next records to deliver for the partitions a record was delivered for
+   */
+  private Map<TopicPartition, OffsetAndMetadata> deliveredOffsets() {
+    Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+    for (Map.Entry<TopicPartition, Long> entry : this.delivered.entrySet()) {
+      offsets.put(entry.getKey(), new OffsetAndMetadata(entry.getValue()));
+    }
+    for (PartitionQueue<K, V> queue : this.partitionQueues.values()) {
+      long offset = queue.deliveredOffset();
+      if (offset >= 0L) {
+        offsets.put(queue.partition, new OffsetAndMetadata(offset));
+      }
+    }
+    for (PartitionStreamImpl<K, V> stream : this.partitionStreams.values()) {
+      long offset = stream.queue.deliveredOffset();
+      if (offset >= 0L) {
+        offsets.put(stream.queue.partition, new OffsetAndMetadata(offset));
+      }
+    }
+    return offsets;
+  }
+
+  @Override
+  public Future<ConsumerGroupMetadata> groupMetadata() {
+    return this.submitTask2((consumer, future) -> {
+      ConsumerGroupMetadata metadata = consumer.groupMetadata();
+      if (future != null) {
+        future.complete(metadata);
+      }
+    });
+  }
+
   @Override
   public Future<List<PartitionInfo>> partitionsFor(String topic) {
     return this.submitTask2((consumer, future) -> {
@@ -538,7 +1519,21 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
 
   @Override
   public KafkaReadStreamImpl<K, V> pause() {
-    this.demand.set(0L);
+    PartitionQueue<K, V> current = this.delivering.get();
+    if (current != null) {
+      // paused by the handler of a partition
+      current.demand.set(0L);
+      current.pauses.incrementAndGet();
+      return this;
+    }
+    synchronized (this.partitionQueues) {
+      this.demand.set(0L);
+      this.pauses.incrementAndGet();
+      for (PartitionQueue<K, V> queue : this.partitionQueues.values()) {
+        queue.demand.set(0L);
+        queue.pauses.incrementAndGet();
+      }
+    }
     return this;
   }
 
@@ -552,14 +1547,27 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
     if (amount < 0) {
       throw new IllegalArgumentException("Invalid claim " + amount);
     }
-    ;
-    long op = this.demand.updateAndGet(val -> {
-      val += amount;
-      if (val < 0L) {
-        val = Long.MAX_VALUE;
+    PartitionQueue<K, V> current = this.delivering.get();
+    if (current != null) {
+      // fetched by the handler of a partition
+      releaseDemand(current.demand, amount);
+      this.schedule(current);
+      return this;
+    }
+    long op;
+    synchronized (this.partitionQueues) {
+      op = this.demand.updateAndGet(val -> {
+        val += amount;
+        if (val < 0L) {
+          val = Long.MAX_VALUE;
+        }
+        return val;
+      });
+      for (PartitionQueue<K, V> queue : this.partitionQueues.values()) {
+        releaseDemand(queue.demand, amount);
+        this.schedule(queue);
       }
-      return val;
-    });
+    }
     if (op > 0L) {
       this.schedule(0);
     }
@@ -568,6 +1576,17 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
 
   @Override
   public long demand() {
+    PartitionQueue<K, V> current = this.delivering.get();
+    if (current != null) {
+      return current.demand.get();
+    } else if (!this.partitionQueues.isEmpty()) {
+      // the highest demand of the partitions
+      long demand = 0L;
+      for (PartitionQueue<K, V> queue : this.partitionQueues.values()) {
+        demand = Math.max(demand, queue.demand.get());
+      }
+      return demand;
+    }
     return this.demand.get();
   }
 
@@ -591,17 +1610,23 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
       this.consumer.wakeup();
 
       final Promise<Void> promise = ctx.promise();
+      final Runnable shutdown = this.workerShutdown;
 
-      this.worker.submit(() -> {
+      this.worker.execute(() -> {
         try {
+          if (this.commitCoalescer != null) {
+            // closing the consumer completes the pending asynchronous commits
+            this.flushCommits();
+          }
           this.consumer.close();
+          this.clearPartitionStreams(new ArrayList<>(this.partitionStreams.keySet()), false);
           promise.complete();
         } catch (final KafkaException ex) {
           promise.fail(ex);
         }
       });
 
-      return promise.future().onComplete(v -> this.worker.shutdownNow());
+      return promise.future().onComplete(v -> shutdown.run());
     }
     return ctx.succeededFuture();
   }
@@ -699,6 +1724,51 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
     return this;
   }
 
+  @Override
+  public ReadStream<ConsumerRecord<K, V>> partitionStream(TopicPartition partition) {
+    PartitionStreamImpl<K, V> stream = this.partitionStreams.computeIfAbsent(partition,
+      tp -> new PartitionStreamImpl<>(this, new PartitionQueue<>(tp, (ContextInternal) this.context), this.dispatchMaxRecords));
+    this.schedule(0);
+    return stream;
+  }
+
+  @Override
+  public void ack(ConsumerRecord<K, V> record) {
+    this.checkAcknowledgements();
+    this.ackTracker.ack(record);
+  }
+
+  @Override
+  public void nack(ConsumerRecord<K, V> record) {
+    this.checkAcknowledgements();
+    if (this.ackTracker.nack(record)) {
+      this.seek(new TopicPartition(record.topic(), record.partition()), record.offset(), true);
+    }
+  }
+
+  private void checkAcknowledgements() {
+    if (this.ackTracker == null) {
+      throw new IllegalStateException("Acknowledgements are not tracked");
+    }
+  }
+
+  @Override
+  public long emptyPolls() {
+    return this.emptyPolls.get();
+  }
+
+  @Override
+  public long idleTime() {
+    long since = this.idleSince;
+    long time = this.idleTime.get();
+    return since != 0L ? time + System.nanoTime() - since : time;
+  }
+
+  @Override
+  public PollerPoolMetrics pollerPoolMetrics() {
+    return this.pollerPool;
+  }
+
   @Override
   public Future<ConsumerRecords<K, V>> poll(final Duration timeout) {
     final Promise<ConsumerRecords<K, V>> promise = Promise.promise();
@@ -706,7 +1776,7 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
       promise.fail(new IllegalStateException("Consumer is not subscribed to any topics or assigned any partitions"));
       return promise.future();
     }
-    this.worker.submit(() -> {
+    this.worker.execute(() -> {
       if (!this.closed.get()) {
         try {
           ConsumerRecords<K, V> records = this.consumer.poll(timeout);
@@ -720,4 +1790,34 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
     });
     return promise.future();
   }
+
+  /**
+   * A batch of polled records along with the fence epoch of the poll.
+   */
+  private static class Batch<K, V> {
+
+    final ConsumerRecords<K, V> records;
+    final long epoch;
+
+    Batch(ConsumerRecords<K, V> records, long epoch) {
+      this.records = records;
+      this.epoch = epoch;
+    }
+  }
+
+  /**
+   * Partitions whose records polled before {@code epoch} must not be dispatched.
+   */
+  private static class Fence {
+
+    final Set<TopicPartition> partitions;
+    volatile long epoch = Long.MAX_VALUE; // Set on the poller
+    long rewind = -1L; // Offset of a rewind to a rejected record, set before the seek
+    boolean applied; // Accessed on event loop
+
+    Fence(Set<TopicPartition> partitions, boolean applied) {
+      this.partitions = partitions;
+      this.applied = applied;
+    }
+  }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.consumer.impl;
+
+import io.vertx.core.impl.ContextInternal;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The records of a partition polled and not yet delivered, filled by the poller and drained on the
+ * context the partition is pinned to.
+ */
+class PartitionQueue<K, V> {
+
+  final TopicPartition partition;
+  final ContextInternal context;
+  private final Queue<ConsumerRecord<K, V>> records = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private volatile long delivered = -1L;
+  boolean paused; // Accessed on the poller
+  // demand of the partition when records are delivered per partition
+  final AtomicLong demand = new AtomicLong(Long.MAX_VALUE);
+  final AtomicInteger pauses = new AtomicInteger();
+
+  PartitionQueue(TopicPartition partition, ContextInternal context) {
+    this.partition = partition;
+    this.context = context;
+  }
+
+  /**
+   * Append polled records, called on the poller.
+   */
+  void add(List<ConsumerRecord<K, V>> list) {
+    records.addAll(list);
+    size.addAndGet(list.size());
+  }
+
+  ConsumerRecord<K, V> poll() {
+    ConsumerRecord<K, V> record = records.poll();
+    if (record != null) {
+      size.decrementAndGet();
+    }
+    return record;
+  }
+
+  /**
+   * Discard the records not yet delivered.
+   */
+  void clear() {
+    while (poll() != null) {
+      // drain
+    }
+  }
+
+  int size() {
+    return size.get();
+  }
+
+  boolean isEmpty() {
+    return records.isEmpty();
+  }
+
+  /**
+   * Mark a drain of the queue as scheduled on its context.
+   *
+   * @return {@code false} when a drain is already scheduled
+   */
+  boolean schedule() {
+    return scheduled.compareAndSet(false, true);
+  }
+
+  void unschedule() {
+    scheduled.set(false);
+  }
+
+  /**
+   * Record that the record at {@code offset} has been handled.
+   */
+  void delivered(long offset) {
+    delivered = offset + 1;
+  }
+
+  /**
+   * Forget the records delivered, after the position of the partition changed.
+   */
+  void resetDelivered() {
+    delivered = -1L;
+  }
+
+  /**
+   * @return the offset of the next record to deliver, or {@code -1} when no record has been delivered yet
+   */
+  long deliveredOffset() {
+    return delivered;
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.consumer.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.streams.ReadStream;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The records of a single partition of a {@link KafkaReadStreamImpl}, with its own demand.
+ * <p>
+ * The poller buffers the records of the partition in a {@link PartitionQueue} and pauses the partition on the
+ * consumer while the stream is paused or its buffer is full.
+ */
+class PartitionStreamImpl<K, V> implements ReadStream<ConsumerRecord<K, V>> {
+
+  private final KafkaReadStreamImpl<K, V> stream;
+  final PartitionQueue<K, V> queue;
+  private final int dispatchMaxRecords;
+  private final AtomicLong demand = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicInteger pauses = new AtomicInteger();
+  private volatile Handler<ConsumerRecord<K, V>> handler;
+  private volatile Handler<Throwable> exceptionHandler;
+  private volatile Handler<Void> endHandler;
+
+  PartitionStreamImpl(KafkaReadStreamImpl<K, V> stream, PartitionQueue<K, V> queue, int dispatchMaxRecords) {
+    this.stream = stream;
+    this.queue = queue;
+    this.dispatchMaxRecords = dispatchMaxRecords;
+  }
+
+  @Override
+  public PartitionStreamImpl<K, V> exceptionHandler(Handler<Throwable> handler) {
+    this.exceptionHandler = handler;
+    return this;
+  }
+
+  @Override
+  public PartitionStreamImpl<K, V> handler(Handler<ConsumerRecord<K, V>> handler) {
+    this.handler = handler;
+    this.schedule();
+    return this;
+  }
+
+  @Override
+  public PartitionStreamImpl<K, V> pause() {
+    this.demand.set(0L);
+    this.pauses.incrementAndGet();
+    return this;
+  }
+
+  @Override
+  public PartitionStreamImpl<K, V> resume() {
+    return fetch(Long.MAX_VALUE);
+  }
+
+  @Override
+  public PartitionStreamImpl<K, V> fetch(long amount) {
+    if (amount < 0) {
+      throw new IllegalArgumentException("Invalid claim " + amount);
+    }
+    this.demand.updateAndGet(val -> {
+      val += amount;
+      if (val < 0L) {
+        val = Long.MAX_VALUE;
+      }
+      return val;
+    });
+    this.schedule();
+    return this;
+  }
+
+  @Override
+  public PartitionStreamImpl<K, V> endHandler(Handler<Void> endHandler) {
+    this.endHandler = endHandler;
+    return this;
+  }
+
+  /**
+   * Report a failure of the poller on the context of the stream.
+   */
+  void fail(Throwable err) {
+    Handler<Throwable> handler = this.exceptionHandler;
+    if (handler != null) {
+      this.queue.context.runOnContext(v -> handler.handle(err));
+    }
+  }
+
+  /**
+   * End the stream when its partition is no longer assigned or the consumer is closed, the records it has not
+   * delivered are discarded.
+   */
+  void end() {
+    this.handler = null;
+    Handler<Void> handler = this.endHandler;
+    if (handler != null) {
+      this.queue.context.runOnContext(handler);
+    }
+  }
+
+  /**
+   * @return whether the stream has a handler and demand, read by the poller
+   */
+  boolean wantsRecords() {
+    return this.handler != null && this.demand.get() > 0L;
+  }
+
+  /**
+   * Schedule the delivery of the buffered records on the context of the stream.
+   */
+  void schedule() {
+    if (this.wantsRecords() && !this.queue.isEmpty() && this.queue.schedule()) {
+      this.queue.context.runOnContext(v -> this.dispatch());
+    }
+  }
+
+  private void dispatch() {
+    Handler<ConsumerRecord<K, V>> handler = this.handler;
+    long granted = handler != null ? KafkaReadStreamImpl.reserveDemand(this.demand, this.dispatchMaxRecords) : 0L;
+    if (granted > 0L) {
+      long unused = this.stream.deliverQueued(this.queue, handler, granted, this.pauses);
+      if (unused > 0L) {
+        KafkaReadStreamImpl.releaseDemand(this.demand, unused);
+      }
+    }
+    this.queue.unschedule();
+    if (granted > 0L) {
+      this.schedule();
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.consumer.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.CloseFuture;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.kafka.client.consumer.PollerPoolMetrics;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of threads multiplexing the Kafka consumers of several read streams.
+ * <p>
+ * Each consumer is given a {@link SerialExecutor} which never runs two tasks at the same time, so a consumer is still
+ * confined to one thread at a time. A serial executor runs a single task each time it gets a thread and then goes back
+ * to the end of the pool queue, consumers are therefore polled in turn.
+ */
+class PollerPool implements PollerPoolMetrics {
+
+  private static final String SHARED_RESOURCE_KEY = "__vertx.shared.kafka.poller";
+
+  /**
+   * Get or create the pool shared under the given {@code name}. The pool is released when
+   * {@code closeFuture} is closed and shut down once all its users have released it.
+   */
+  static PollerPool acquire(Vertx vertx, String name, int size, CloseFuture closeFuture) {
+    return ((VertxInternal) vertx).createSharedResource(SHARED_RESOURCE_KEY, name, closeFuture, cf -> {
+      PollerPool pool = new PollerPool(name, size);
+      cf.add(completion -> {
+        pool.shutdown();
+        completion.handle(Future.succeededFuture());
+      });
+      return pool;
+    });
+  }
+
+  private final String name;
+  private final ThreadPoolExecutor executor;
+  private final AtomicInteger consumers = new AtomicInteger();
+  private final AtomicInteger active = new AtomicInteger();
+  private final LongAdder completed = new LongAdder();
+
+  PollerPool(String name, int size) {
+    AtomicInteger threadCount = new AtomicInteger();
+    this.name = name;
+    this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+      r -> new Thread(r, "vert.x-kafka-consumer-thread-" + name + "-" + threadCount.getAndIncrement()));
+  }
+
+  /**
+   * @return a new executor for a consumer
+   */
+  SerialExecutor executor() {
+    consumers.incrementAndGet();
+    return new SerialExecutor();
+  }
+
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  @Override
+  public int size() {
+    return executor.getCorePoolSize();
+  }
+
+  @Override
+  public int consumers() {
+    return consumers.get();
+  }
+
+  @Override
+  public int activeThreads() {
+    return active.get();
+  }
+
+  @Override
+  public int queuedConsumers() {
+    return executor.getQueue().size();
+  }
+
+  @Override
+  public long completedTasks() {
+    return completed.sum();
+  }
+
+  /**
+   * Runs the tasks of a single consumer in order, one at a time, on the pool threads.
+   */
+  class SerialExecutor implements Executor, Runnable {
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    @Override
+    public void execute(Runnable task) {
+      tasks.add(task);
+      if (scheduled.compareAndSet(false, true)) {
+        executor.execute(this);
+      }
+    }
+
+    @Override
+    public void run() {
+      active.incrementAndGet();
+      try {
+        Runnable task = tasks.poll();
+        if (task != null) {
+          task.run();
+        }
+      } finally {
+        active.decrementAndGet();
+        completed.increment();
+        scheduled.set(false);
+        if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+          executor.execute(this);
+        }
+      }
+    }
+
+    /**
+     * Release the executor, pending tasks are discarded.
+     */
+    void close() {
+      if (closed.compareAndSet(false, true)) {
+        tasks.clear();
+        consumers.decrementAndGet();
+      }
+    }
+  }
+}
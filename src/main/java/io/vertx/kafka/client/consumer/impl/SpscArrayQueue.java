@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.consumer.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free ring for handing elements from a single producer to a single consumer.
+ * <p>
+ * The producer and the consumer may each run on different threads over time as long as their
+ * calls are serialized, e.g. a consumer poller always offers and the event loop always polls.
+ */
+class SpscArrayQueue<E> {
+
+  private final AtomicReferenceArray<E> buffer;
+  private final int capacity;
+  private final AtomicLong head = new AtomicLong(); // next index to poll, written by the consumer
+  private final AtomicLong tail = new AtomicLong(); // next index to offer, written by the producer
+
+  SpscArrayQueue(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Invalid capacity " + capacity);
+    }
+    this.buffer = new AtomicReferenceArray<>(capacity);
+    this.capacity = capacity;
+  }
+
+  /**
+   * Producer side.
+   *
+   * @return {@code false} when the ring is full
+   */
+  boolean offer(E element) {
+    long t = tail.get();
+    if (t - head.get() >= capacity) {
+      return false;
+    }
+    buffer.set((int) (t % capacity), element);
+    tail.set(t + 1);
+    return true;
+  }
+
+  /**
+   * Consumer side.
+   *
+   * @return the oldest element or {@code null} when the ring is empty
+   */
+  E poll() {
+    long h = head.get();
+    if (h >= tail.get()) {
+      return null;
+    }
+    int index = (int) (h % capacity);
+    E element = buffer.get(index);
+    buffer.set(index, null);
+    head.set(h + 1);
+    return element;
+  }
+
+  boolean isEmpty() {
+    return head.get() >= tail.get();
+  }
+
+  boolean isFull() {
+    return tail.get() - head.get() >= capacity;
+  }
+
+  int size() {
+    return (int) (tail.get() - head.get());
+  }
+}
@@ -24,6 +24,8 @@ import io.vertx.kafka.client.producer.impl.KafkaHeaderImpl;
 
 /**
  * Vert.x Kafka producer record header.
+ * <p>
+ * Two headers are equal when they have the same key and value, whatever their implementation.
  */
 @VertxGen
 public interface KafkaHeader {
@@ -25,7 +25,10 @@ import io.vertx.core.Vertx;
 import io.vertx.core.streams.WriteStream;
 import io.vertx.kafka.client.common.KafkaClientOptions;
 import io.vertx.kafka.client.common.PartitionInfo;
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.consumer.OffsetAndMetadata;
 import io.vertx.kafka.client.producer.impl.KafkaProducerImpl;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.common.serialization.Serializer;
 
@@ -194,6 +197,54 @@ public interface KafkaProducer<K, V> extends WriteStream<KafkaProducerRecord<K,
     return KafkaProducerImpl.createShared(vertx, name, options, keyType, valueType);
   }
 
+  /**
+   * Create a KafkaProducer spreading the records over a pool of {@code size} shared producers, named {@code name-0}
+   * to {@code name-(size-1)}, to write beyond what a single producer sender thread can do.
+   * <p>
+   * The records of a partition or with the same key are always written by the same producer, so their order
+   * is preserved. Closing the pool closes each of its shared producers. Transactions are not supported.
+   *
+   * @param vertx Vert.x instance to use
+   * @param name the name prefix of the shared producers
+   * @param options  Kafka producer options
+   * @param size the number of producers
+   * @return  an instance of the KafkaProducer
+   */
+  static <K, V> KafkaProducer<K, V> createPool(Vertx vertx, String name, KafkaClientOptions options, int size) {
+    return KafkaProducerImpl.createPool(vertx, name, size, producerName -> KafkaProducerImpl.createShared(vertx, producerName, options));
+  }
+
+  /**
+   * Like {@link #createPool(Vertx, String, KafkaClientOptions, int)} with the key and value types.
+   *
+   * @param vertx Vert.x instance to use
+   * @param name the name prefix of the shared producers
+   * @param options  Kafka producer options
+   * @param size the number of producers
+   * @param keyType class type for the key serialization
+   * @param valueType class type for the value serialization
+   * @return  an instance of the KafkaProducer
+   */
+  static <K, V> KafkaProducer<K, V> createPool(Vertx vertx, String name, KafkaClientOptions options, int size, Class<K> keyType, Class<V> valueType) {
+    return KafkaProducerImpl.createPool(vertx, name, size, producerName -> KafkaProducerImpl.createShared(vertx, producerName, options, keyType, valueType));
+  }
+
+  /**
+   * Like {@link #createPool(Vertx, String, KafkaClientOptions, int)} with the key and value serializers.
+   *
+   * @param vertx Vert.x instance to use
+   * @param name the name prefix of the shared producers
+   * @param options  Kafka producer options
+   * @param size the number of producers
+   * @param keySerializer key serializer
+   * @param valueSerializer value serializer
+   * @return  an instance of the KafkaProducer
+   */
+  @GenIgnore
+  static <K, V> KafkaProducer<K, V> createPool(Vertx vertx, String name, KafkaClientOptions options, int size, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+    return KafkaProducerImpl.createPool(vertx, name, size, producerName -> KafkaProducerImpl.createShared(vertx, producerName, options, keySerializer, valueSerializer));
+  }
+
   /**
    * Create a new KafkaProducer instance from a native {@link Producer}.
    *
@@ -319,6 +370,17 @@ public interface KafkaProducer<K, V> extends WriteStream<KafkaProducerRecord<K,
    */
   Future<Void> abortTransaction();
 
+  /**
+   * Sends the offsets of the consumed records to the ongoing transaction, they are committed with the transaction.
+   * See {@link org.apache.kafka.clients.producer.KafkaProducer#sendOffsetsToTransaction(java.util.Map, ConsumerGroupMetadata)}
+   *
+   * @param offsets the offsets to commit
+   * @param groupMetadata the group metadata of the consumer of the records
+   * @return a future notified with the result
+   */
+  @GenIgnore
+  Future<Void> sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, ConsumerGroupMetadata groupMetadata);
+
   @Fluent
   @Override
   KafkaProducer<K, V> exceptionHandler(Handler<Throwable> handler);
@@ -327,6 +389,16 @@ public interface KafkaProducer<K, V> extends WriteStream<KafkaProducerRecord<K,
   @Override
   KafkaProducer<K, V> setWriteQueueMaxSize(int i);
 
+  /**
+   * Change the rate limits of the producer, see {@link KafkaWriteStream#setRateLimit(long, long)}.
+   *
+   * @param maxRecordsPerSecond the maximum number of records per second, {@code 0} for no limit
+   * @param maxBytesPerSecond the maximum number of bytes per second, {@code 0} for no limit
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  KafkaProducer<K, V> setRateLimit(long maxRecordsPerSecond, long maxBytesPerSecond);
+
   @Fluent
   @Override
   KafkaProducer<K, V> drainHandler(Handler<Void> handler);
@@ -339,6 +411,40 @@ public interface KafkaProducer<K, V> extends WriteStream<KafkaProducerRecord<K,
    */
   Future<RecordMetadata> send(KafkaProducerRecord<K, V> record);
 
+  /**
+   * Asynchronously write a batch of records, the records are handed to the producer together and the batch
+   * is completed once every record has been acknowledged.
+   *
+   * @param records  records to write
+   * @return a {@code Future} completed with the metadata of the records in the same order, or failed with the first
+   *         failure when a record could not be written
+   */
+  Future<List<RecordMetadata>> sendBatch(List<KafkaProducerRecord<K, V>> records);
+
+  /**
+   * @return a future completed once the metadata of the {@link KafkaClientOptions#getWarmUpTopics() warm-up topics}
+   *         has been fetched, or failed when it could not be
+   */
+  Future<Void> ready();
+
+  /**
+   * @return the number of records acknowledged by Kafka
+   */
+  long acknowledgedRecords();
+
+  /**
+   * @return the number of records that could not be written, with fire and forget writes failures are
+   *         only reported to the exception handler and by this counter
+   */
+  long failedRecords();
+
+  /**
+   * @return the number of records replaced by a record with the same key before being written, see
+   *         {@link KafkaClientOptions#setCoalesceWindow(long)}, their send fails with a {@link RecordCoalescedException}
+   *         while their write succeeds
+   */
+  long coalescedRecords();
+
   /**
    * Get the partition metadata for the give topic.
    *
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.kafka.client.producer;
+
+import io.vertx.codegen.annotations.Fluent;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.kafka.client.common.KafkaClientOptions;
+import io.vertx.kafka.client.consumer.KafkaReadStream;
+import io.vertx.kafka.client.producer.impl.KafkaTransactionalPipelineImpl;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * An exactly-once consume-transform-produce pipeline.
+ * <p>
+ * The records consumed by a {@link KafkaReadStream} are transformed into records written by a transactional
+ * {@link KafkaWriteStream}, the offsets of the consumed records are committed in the same transaction as the records
+ * they produced. A transaction is committed once it holds {@link KafkaClientOptions#getTransactionMaxRecords()}
+ * consumed records or after {@link KafkaClientOptions#getTransactionMaxTime()} milliseconds.
+ * <p>
+ * When a record cannot be transformed or written, or the transaction cannot be committed, the transaction is aborted
+ * and the consumer is rewound to the first record of the transaction, so the records are consumed again. A record
+ * failing to be transformed more than {@link KafkaClientOptions#getTransactionMaxRetries()} times in a row is skipped:
+ * its offset is committed with the transaction and the records returned by the
+ * {@link #deadLetterHandler dead letter handler} are produced in its place.
+ * <p>
+ * The pipeline drives the flow of the read stream: the consumer must not commit offsets by itself
+ * ({@code enable.auto.commit=false}) and should only read committed records ({@code isolation.level=read_committed}).
+ * The write stream must be configured with a {@code transactional.id}.
+ */
+public interface KafkaTransactionalPipeline<K, V, KO, VO> {
+
+  /**
+   * Create a new pipeline.
+   *
+   * @param vertx Vert.x instance to use
+   * @param consumer the stream of the records to consume
+   * @param producer the transactional stream of the records to produce
+   * @param transform the function transforming a consumed record into the records to produce, which can be empty
+   * @param options the options, only the transaction options are read
+   * @return an instance of the KafkaTransactionalPipeline
+   */
+  static <K, V, KO, VO> KafkaTransactionalPipeline<K, V, KO, VO> create(Vertx vertx,
+                                                                        KafkaReadStream<K, V> consumer,
+                                                                        KafkaWriteStream<KO, VO> producer,
+                                                                        Function<ConsumerRecord<K, V>, List<ProducerRecord<KO, VO>>> transform,
+                                                                        KafkaClientOptions options) {
+    return new KafkaTransactionalPipelineImpl<>(vertx, consumer, producer, transform, options);
+  }
+
+  /**
+   * Set an exception handler notified of the failures of the transactions, once the transaction is aborted and its
+   * records are about to be consumed again. When the transaction cannot be aborted, e.g. the producer has been fenced,
+   * the pipeline fails and stops handling records.
+   *
+   * @param handler the exception handler
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  KafkaTransactionalPipeline<K, V, KO, VO> exceptionHandler(Handler<Throwable> handler);
+
+  /**
+   * Set a function called with a record skipped after exhausting its retries and the failure of its last transform.
+   * The records it returns, e.g. a copy of the record sent to a dead letter topic, are produced in the transaction
+   * committing the offset of the skipped record. The failure is also reported to the exception handler.
+   * <p>
+   * Without a dead letter handler, a skipped record produces nothing.
+   *
+   * @param handler the dead letter handler
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  KafkaTransactionalPipeline<K, V, KO, VO> deadLetterHandler(BiFunction<ConsumerRecord<K, V>, Throwable, List<ProducerRecord<KO, VO>>> handler);
+
+  /**
+   * Initialize the transactions of the producer and start handling the records of the consumer.
+   *
+   * @return a future completed once the pipeline is started
+   */
+  Future<Void> start();
+
+  /**
+   * Commit the ongoing transaction and stop handling the records of the consumer, the consumer is left paused.
+   *
+   * @return a future completed once the pipeline is stopped
+   */
+  Future<Void> stop();
+
+  /**
+   * @return the number of transactions committed
+   */
+  long committedTransactions();
+
+  /**
+   * @return the number of transactions aborted
+   */
+  long abortedTransactions();
+}
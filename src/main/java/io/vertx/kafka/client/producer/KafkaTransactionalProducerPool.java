@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.kafka.client.producer;
+
+import io.vertx.codegen.annotations.Fluent;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.kafka.client.common.KafkaClientOptions;
+import io.vertx.kafka.client.consumer.KafkaReadStream;
+import io.vertx.kafka.client.producer.impl.KafkaProducerImpl;
+import io.vertx.kafka.client.producer.impl.KafkaTransactionalProducerPoolImpl;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A pool of transactional producers, one for each input partition of a consume-transform-produce application.
+ * <p>
+ * The producer of an input partition has a stable {@code transactional.id} derived from the partition,
+ * {@code prefix-topic-partition}. When a partition moves to another application instance, the producer the new owner
+ * creates initializes its transactions with the same id: the producer of the previous owner is fenced and its ongoing
+ * transaction aborted, so a zombie instance cannot write the records of the partition anymore.
+ * <p>
+ * The pool grows and shrinks with the assignment of the consumer it is {@link #bind(KafkaReadStream) bound} to.
+ */
+public interface KafkaTransactionalProducerPool<K, V> {
+
+  /**
+   * Create a new pool of transactional producers.
+   *
+   * @param vertx Vert.x instance to use
+   * @param transactionalIdPrefix the prefix of the {@code transactional.id} of the producers
+   * @param options  Kafka producer options
+   * @param keySerializer key serializer
+   * @param valueSerializer value serializer
+   * @return an instance of the KafkaTransactionalProducerPool
+   */
+  static <K, V> KafkaTransactionalProducerPool<K, V> create(Vertx vertx, String transactionalIdPrefix, KafkaClientOptions options, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+    return create(vertx, transactionalIdPrefix, transactionalId -> {
+      Map<String, Object> config = new HashMap<>();
+      if (options.getConfig() != null) {
+        config.putAll(options.getConfig());
+      }
+      config.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, transactionalId);
+      KafkaWriteStream<K, V> stream = KafkaWriteStream.create(
+        vertx,
+        new org.apache.kafka.clients.producer.KafkaProducer<>(config, keySerializer, valueSerializer),
+        options);
+      return new KafkaProducerImpl<>(vertx, stream).registerCloseHook();
+    });
+  }
+
+  /**
+   * Create a new pool of transactional producers.
+   *
+   * @param vertx Vert.x instance to use
+   * @param transactionalIdPrefix the prefix of the {@code transactional.id} of the producers
+   * @param factory the function creating a producer configured with the given {@code transactional.id}
+   * @return an instance of the KafkaTransactionalProducerPool
+   */
+  static <K, V> KafkaTransactionalProducerPool<K, V> create(Vertx vertx, String transactionalIdPrefix, Function<String, KafkaProducer<K, V>> factory) {
+    return new KafkaTransactionalProducerPoolImpl<>(transactionalIdPrefix, factory);
+  }
+
+  /**
+   * @param transactionalIdPrefix the prefix of the {@code transactional.id} of the producers
+   * @param partition the input partition
+   * @return the {@code transactional.id} of the producer of the input partition
+   */
+  static String transactionalId(String transactionalIdPrefix, TopicPartition partition) {
+    return transactionalIdPrefix + "-" + partition.topic() + "-" + partition.partition();
+  }
+
+  /**
+   * Set an exception handler notified of the failures to create or close the producers of the partitions assigned
+   * to or revoked from the bound consumer.
+   *
+   * @param handler the exception handler
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  KafkaTransactionalProducerPool<K, V> exceptionHandler(Handler<Throwable> handler);
+
+  /**
+   * Follow the assignment of a consumer: the producers of the assigned partitions are created and the producers of
+   * the revoked partitions are closed.
+   * <p>
+   * This replaces the partitions assigned and revoked handlers of the consumer, use
+   * {@link #bind(KafkaReadStream, Handler, Handler)} to keep being notified of the rebalances.
+   *
+   * @param consumer the consumer of the input partitions
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  KafkaTransactionalProducerPool<K, V> bind(KafkaReadStream<?, ?> consumer);
+
+  /**
+   * Like {@link #bind(KafkaReadStream)} but the partitions assigned and revoked handlers of the consumer also call
+   * the given handlers: {@code partitionsAssignedHandler} once the producers of the assigned partitions are created,
+   * even when some failed, and {@code partitionsRevokedHandler} before the producers of the revoked partitions are
+   * closed.
+   *
+   * @param consumer the consumer of the input partitions
+   * @param partitionsAssignedHandler the handler called with the assigned partitions, can be {@code null}
+   * @param partitionsRevokedHandler the handler called with the revoked partitions, can be {@code null}
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  KafkaTransactionalProducerPool<K, V> bind(KafkaReadStream<?, ?> consumer,
+                                            Handler<Set<TopicPartition>> partitionsAssignedHandler,
+                                            Handler<Set<TopicPartition>> partitionsRevokedHandler);
+
+  /**
+   * Get the producer of an input partition, the producer is created and its transactions initialized when the pool
+   * does not have it yet.
+   *
+   * @param partition the input partition
+   * @return a future completed with the producer once its transactions are initialized
+   */
+  Future<KafkaProducer<K, V>> producer(TopicPartition partition);
+
+  /**
+   * Create the producers of input partitions.
+   *
+   * @param partitions the input partitions
+   * @return a future completed once the transactions of the producers are initialized
+   */
+  Future<Void> assign(Set<TopicPartition> partitions);
+
+  /**
+   * Close the producers of input partitions, their ongoing transactions are aborted.
+   *
+   * @param partitions the input partitions
+   * @return a future completed once the producers are closed
+   */
+  Future<Void> revoke(Set<TopicPartition> partitions);
+
+  /**
+   * @return the input partitions the pool has a producer for
+   */
+  Set<TopicPartition> partitions();
+
+  /**
+   * Close the producers of the pool.
+   *
+   * @return a future completed once the producers are closed
+   */
+  Future<Void> close();
+}
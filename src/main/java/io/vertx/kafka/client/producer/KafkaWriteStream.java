@@ -25,10 +25,13 @@ import io.vertx.core.streams.WriteStream;
 import io.vertx.kafka.client.common.KafkaClientOptions;
 import io.vertx.kafka.client.producer.impl.KafkaWriteStreamImpl;
 import io.vertx.kafka.client.serialization.VertxSerdes;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.Serializer;
 
 import java.util.HashMap;
@@ -196,10 +199,30 @@ public interface KafkaWriteStream<K, V> extends WriteStream<ProducerRecord<K, V>
     return new KafkaWriteStreamImpl<>(vertx, producer, new KafkaClientOptions());
   }
 
+  /**
+   * Create a new KafkaWriteStream instance
+   *
+   * @param vertx Vert.x instance to use
+   * @param producer  native Kafka producer instance
+   * @param options  Kafka producer options, the Kafka config is only read for the settings of the native producer
+   *                 that the stream takes into account
+   */
+  static <K, V> KafkaWriteStream<K, V> create(Vertx vertx, Producer<K, V> producer, KafkaClientOptions options) {
+    return new KafkaWriteStreamImpl<>(vertx, producer, options);
+  }
+
   @Fluent
   @Override
   KafkaWriteStream<K, V> exceptionHandler(Handler<Throwable> handler);
 
+  /**
+   * Set the maximum size of the write queue, in bytes: the size of a record is the size of its key, value and headers.
+   * Keys and values which are not {@code byte[]}, {@code String}, {@code Buffer}, {@code ByteBuffer} or {@code Bytes}
+   * are estimated from the serialized size of the records acknowledged so far.
+   *
+   * @param i the maximum size of the write queue
+   * @return a reference to this, so the API can be used fluently
+   */
   @Fluent
   @Override
   KafkaWriteStream<K, V> setWriteQueueMaxSize(int i);
@@ -208,6 +231,20 @@ public interface KafkaWriteStream<K, V> extends WriteStream<ProducerRecord<K, V>
   @Override
   KafkaWriteStream<K, V> drainHandler(@Nullable Handler<Void> handler);
 
+  /**
+   * Change the rate limits of the stream, see {@link KafkaClientOptions#setMaxRecordsPerSecond(long)} and
+   * {@link KafkaClientOptions#setMaxBytesPerSecond(long)}. Above the limits the records sent are held until the rate
+   * goes down, {@link #writeQueueFull()} returns {@code true} and the drain handler is called once the rate goes down.
+   * The tokens left are kept, up to the burst of the new limits, and {@link #flush()} or {@link #close()} send the
+   * held records without waiting.
+   *
+   * @param maxRecordsPerSecond the maximum number of records per second, {@code 0} for no limit
+   * @param maxBytesPerSecond the maximum number of bytes per second, {@code 0} for no limit
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  KafkaWriteStream<K, V> setRateLimit(long maxRecordsPerSecond, long maxBytesPerSecond);
+
   /**
    * Initializes the underlying kafka transactional producer. See {@link KafkaProducer#initTransactions()} ()}
    *
@@ -236,6 +273,16 @@ public interface KafkaWriteStream<K, V> extends WriteStream<ProducerRecord<K, V>
    */
   Future<Void> abortTransaction();
 
+  /**
+   * Sends the offsets of the consumed records to the ongoing transaction, they are committed with the transaction.
+   * See {@link org.apache.kafka.clients.producer.KafkaProducer#sendOffsetsToTransaction(Map, ConsumerGroupMetadata)}
+   *
+   * @param offsets the offsets to commit
+   * @param groupMetadata the group metadata of the consumer of the records
+   * @return a future notified with the result
+   */
+  Future<Void> sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, ConsumerGroupMetadata groupMetadata);
+
   /**
    * Asynchronously write a record to a topic
    *
@@ -244,6 +291,41 @@ public interface KafkaWriteStream<K, V> extends WriteStream<ProducerRecord<K, V>
    */
   Future<RecordMetadata> send(ProducerRecord<K, V> record);
 
+  /**
+   * Asynchronously write a batch of records.
+   * <p>
+   * The records are handed to the producer together and the batch is completed on the context once every record
+   * has been acknowledged, which is cheaper than sending each record on its own.
+   *
+   * @param records  records to write
+   * @return a {@code Future} completed with the metadata of the records in the same order, or failed with the first
+   *         failure when a record could not be written
+   */
+  Future<List<RecordMetadata>> sendBatch(List<ProducerRecord<K, V>> records);
+
+  /**
+   * @return a future completed once the metadata of the {@link KafkaClientOptions#getWarmUpTopics() warm-up topics}
+   *         has been fetched, or failed when it could not be
+   */
+  Future<Void> ready();
+
+  /**
+   * @return the number of records acknowledged by Kafka
+   */
+  long acknowledgedRecords();
+
+  /**
+   * @return the number of records that could not be written
+   */
+  long failedRecords();
+
+  /**
+   * @return the number of records replaced by a record with the same key before being written, see
+   *         {@link KafkaClientOptions#setCoalesceWindow(long)}, their send fails with a {@link RecordCoalescedException}
+   *         while their write succeeds
+   */
+  long coalescedRecords();
+
   /**
    * Get the partition metadata for the give topic.
    *
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.producer;
+
+import io.vertx.core.VertxException;
+import io.vertx.kafka.client.common.KafkaClientOptions;
+
+/**
+ * The failure of the send of a record replaced by a later record with the same topic, partition and key before
+ * being written, see {@link KafkaClientOptions#setCoalesceWindow(long)}. The record was not written, the record
+ * replacing it carries its update.
+ */
+public class RecordCoalescedException extends VertxException {
+
+  public RecordCoalescedException() {
+    super("Record replaced by a record with the same key", true);
+  }
+}
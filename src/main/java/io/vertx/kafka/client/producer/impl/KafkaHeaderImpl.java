@@ -51,9 +51,9 @@ public class KafkaHeaderImpl implements KafkaHeader {
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
-    if (o == null || getClass() != o.getClass()) return false;
-    KafkaHeaderImpl that = (KafkaHeaderImpl) o;
-    return Objects.equals(key, that.key) && Objects.equals(value, that.value);
+    if (!(o instanceof KafkaHeader)) return false;
+    KafkaHeader that = (KafkaHeader) o;
+    return Objects.equals(key, that.key()) && Objects.equals(value, that.value());
   }
 
   @Override
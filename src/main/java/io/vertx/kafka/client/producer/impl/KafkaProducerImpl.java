@@ -24,17 +24,23 @@ import io.vertx.kafka.client.common.KafkaClientOptions;
 import io.vertx.kafka.client.common.impl.CloseHandler;
 import io.vertx.kafka.client.common.impl.Helper;
 import io.vertx.kafka.client.common.PartitionInfo;
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.consumer.OffsetAndMetadata;
 import io.vertx.kafka.client.producer.KafkaProducer;
 import io.vertx.kafka.client.producer.KafkaProducerRecord;
 import io.vertx.kafka.client.producer.KafkaWriteStream;
 import io.vertx.kafka.client.producer.RecordMetadata;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
 import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.serialization.Serializer;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -80,18 +86,37 @@ public class KafkaProducerImpl<K, V> implements KafkaProducer<K, V> {
     return createShared(vertx, name, () -> KafkaWriteStream.create(vertx, options, keySerializer, valueSerializer));
   }
 
-  private static <K, V> KafkaProducer<K, V> createShared(Vertx vertx, String name, Supplier<KafkaWriteStream> streamFactory) {
+  public static <K, V> KafkaProducer<K, V> createPool(Vertx vertx, String name, int size, Function<String, KafkaProducer<K, V>> factory) {
+    if (size < 1) {
+      throw new IllegalArgumentException("size must be > 0");
+    }
+    List<KafkaProducer<K, V>> producers = new ArrayList<>(size);
+    for (int i = 0;i < size;i++) {
+      producers.add(factory.apply(name + "-" + i));
+    }
+    return new KafkaProducerImpl<>(vertx, new KafkaWriteStreamPool<>(producers)).registerCloseHook();
+  }
+
+  public static <K, V> KafkaProducer<K, V> createShared(Vertx vertx, String name, Supplier<KafkaWriteStream<K, V>> streamFactory) {
     CloseFuture closeFuture = new CloseFuture();
-    Producer<K, V> s = ((VertxInternal)vertx).createSharedResource("__vertx.shared.kafka.producer", name, closeFuture, cf -> {
-      Producer<K, V> producer = streamFactory.get().unwrap();
-      cf.add(completion -> vertx.<Void>executeBlocking(() -> {
-        producer.close();
-        return null;
-      }).onComplete(completion));
-      return producer;
+    KafkaWriteStream<K, V> s = ((VertxInternal)vertx).createSharedResource("__vertx.shared.kafka.producer", name, closeFuture, cf -> {
+      KafkaWriteStream<K, V> stream = streamFactory.get();
+      // closing the stream also stops refreshing the metadata of the warm-up topics
+      cf.add(completion -> stream.close().onComplete(completion));
+      return stream;
     });
-    KafkaProducerImpl<K, V> producer = new KafkaProducerImpl<>(vertx, KafkaWriteStream.create(vertx, s), new CloseHandler((timeout, ar) -> {
-      closeFuture.close().onComplete(ar);
+    if (!(s instanceof KafkaWriteStreamImpl)) {
+      KafkaProducerImpl<K, V> producer = new KafkaProducerImpl<>(vertx, KafkaWriteStream.create(vertx, s.unwrap()), new CloseHandler((timeout, ar) -> {
+        closeFuture.close().onComplete(ar);
+      }));
+      producer.registerCloseHook();
+      return producer;
+    }
+    // each shared producer has its own stream configured with the options of the shared stream, sharing its metadata
+    KafkaWriteStreamImpl<K, V> stream = ((KafkaWriteStreamImpl<K, V>) s).share();
+    KafkaProducerImpl<K, V> producer = new KafkaProducerImpl<>(vertx, stream, new CloseHandler((timeout, ar) -> {
+      // sends the records held by the stream before releasing the shared producer
+      stream.close().transform(v -> closeFuture.close()).onComplete(ar);
     }));
     producer.registerCloseHook();
     return producer;
@@ -140,6 +165,11 @@ public class KafkaProducerImpl<K, V> implements KafkaProducer<K, V> {
     return this.stream.abortTransaction();
   }
 
+  @Override
+  public Future<Void> sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, ConsumerGroupMetadata groupMetadata) {
+    return this.stream.sendOffsetsToTransaction(Helper.to(offsets), groupMetadata);
+  }
+
   @Override
   public KafkaProducer<K, V> exceptionHandler(Handler<Throwable> handler) {
     this.stream.exceptionHandler(handler);
@@ -157,6 +187,41 @@ public class KafkaProducerImpl<K, V> implements KafkaProducer<K, V> {
     return this.stream.send(record.record()).map(Helper::from);
   }
 
+  @Override
+  public Future<List<RecordMetadata>> sendBatch(List<KafkaProducerRecord<K, V>> records) {
+    List<ProducerRecord<K, V>> list = new ArrayList<>(records.size());
+    for (KafkaProducerRecord<K, V> record : records) {
+      list.add(record.record());
+    }
+    return this.stream.sendBatch(list).map(metadata -> {
+      List<RecordMetadata> result = new ArrayList<>(metadata.size());
+      for (org.apache.kafka.clients.producer.RecordMetadata m : metadata) {
+        result.add(Helper.from(m));
+      }
+      return result;
+    });
+  }
+
+  @Override
+  public Future<Void> ready() {
+    return this.stream.ready();
+  }
+
+  @Override
+  public long acknowledgedRecords() {
+    return this.stream.acknowledgedRecords();
+  }
+
+  @Override
+  public long failedRecords() {
+    return this.stream.failedRecords();
+  }
+
+  @Override
+  public long coalescedRecords() {
+    return this.stream.coalescedRecords();
+  }
+
   @Override
   public Future<List<PartitionInfo>> partitionsFor(String topic) {
     return this.stream.partitionsFor(topic).map(list ->
@@ -184,6 +249,12 @@ public class KafkaProducerImpl<K, V> implements KafkaProducer<K, V> {
     return this;
   }
 
+  @Override
+  public KafkaProducer<K, V> setRateLimit(long maxRecordsPerSecond, long maxBytesPerSecond) {
+    this.stream.setRateLimit(maxRecordsPerSecond, maxBytesPerSecond);
+    return this;
+  }
+
   @Override
   public boolean writeQueueFull() {
     return this.stream.writeQueueFull();
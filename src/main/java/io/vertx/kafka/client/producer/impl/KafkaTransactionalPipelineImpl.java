@@ -0,0 +1,398 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.kafka.client.producer.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.kafka.client.common.KafkaClientOptions;
+import io.vertx.kafka.client.consumer.KafkaReadStream;
+import io.vertx.kafka.client.producer.KafkaTransactionalPipeline;
+import io.vertx.kafka.client.producer.KafkaWriteStream;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The pipeline state is only accessed on its context: records are handed over to it and the results of the
+ * consumer and producer operations are completed on it.
+ */
+public class KafkaTransactionalPipelineImpl<K, V, KO, VO> implements KafkaTransactionalPipeline<K, V, KO, VO> {
+
+  private enum State {
+    STOPPED, STARTING, IDLE, BEGINNING, OPEN, COMMITTING, ABORTING, FAILED
+  }
+
+  private final Vertx vertx;
+  private final ContextInternal context;
+  private final KafkaReadStream<K, V> consumer;
+  private final KafkaWriteStream<KO, VO> producer;
+  private final Function<ConsumerRecord<K, V>, List<ProducerRecord<KO, VO>>> transform;
+  private final int maxRecords;
+  private final long maxTime;
+  private final int maxRetries;
+  private final LongAdder committedTransactions = new LongAdder();
+  private final LongAdder abortedTransactions = new LongAdder();
+  private Handler<Throwable> exceptionHandler;
+  private BiFunction<ConsumerRecord<K, V>, Throwable, List<ProducerRecord<KO, VO>>> deadLetterHandler;
+
+  private State state = State.STOPPED;
+  private boolean initialized;
+  private Promise<Void> stopPromise;
+  private long timer = -1L;
+  // records received while no transaction is open
+  private final Deque<ConsumerRecord<K, V>> queued = new ArrayDeque<>();
+  // the transaction: offset of the first record of each partition, offsets to commit and records sent
+  private final Map<TopicPartition, Long> firstOffsets = new HashMap<>();
+  private final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+  private final List<Future<RecordMetadata>> sends = new ArrayList<>();
+  private int records;
+  // the last record which could not be transformed and the number of times in a row it failed
+  private TopicPartition failedPartition;
+  private long failedOffset;
+  private int failures;
+
+  public KafkaTransactionalPipelineImpl(Vertx vertx,
+                                        KafkaReadStream<K, V> consumer,
+                                        KafkaWriteStream<KO, VO> producer,
+                                        Function<ConsumerRecord<K, V>, List<ProducerRecord<KO, VO>>> transform,
+                                        KafkaClientOptions options) {
+    this.vertx = vertx;
+    this.context = (ContextInternal) vertx.getOrCreateContext();
+    this.consumer = consumer;
+    this.producer = producer;
+    this.transform = transform;
+    this.maxRecords = options.getTransactionMaxRecords();
+    this.maxTime = options.getTransactionMaxTime();
+    this.maxRetries = options.getTransactionMaxRetries();
+  }
+
+  @Override
+  public KafkaTransactionalPipelineImpl<K, V, KO, VO> exceptionHandler(Handler<Throwable> handler) {
+    this.exceptionHandler = handler;
+    return this;
+  }
+
+  @Override
+  public KafkaTransactionalPipelineImpl<K, V, KO, VO> deadLetterHandler(BiFunction<ConsumerRecord<K, V>, Throwable, List<ProducerRecord<KO, VO>>> handler) {
+    this.deadLetterHandler = handler;
+    return this;
+  }
+
+  @Override
+  public Future<Void> start() {
+    Promise<Void> promise = context.promise();
+    context.runOnContext(v -> {
+      if (state != State.STOPPED) {
+        promise.fail(new IllegalStateException("The pipeline is " + state.name().toLowerCase()));
+        return;
+      }
+      state = State.STARTING;
+      Future<Void> init = initialized ? Future.succeededFuture() : producer.initTransactions();
+      onContext(init).onComplete(ar -> {
+        if (ar.failed()) {
+          state = State.STOPPED;
+          promise.fail(ar.cause());
+          return;
+        }
+        initialized = true;
+        state = State.IDLE;
+        consumer.handler(this::handle);
+        next();
+        promise.complete();
+      });
+    });
+    return promise.future();
+  }
+
+  @Override
+  public Future<Void> stop() {
+    Promise<Void> promise = context.promise();
+    context.runOnContext(v -> {
+      switch (state) {
+        case STOPPED:
+        case FAILED:
+          promise.complete();
+          break;
+        case STARTING:
+          promise.fail(new IllegalStateException("The pipeline is starting"));
+          break;
+        default:
+          if (stopPromise != null) {
+            stopPromise.future().onComplete(promise);
+            return;
+          }
+          stopPromise = promise;
+          consumer.pause();
+          if (state == State.IDLE) {
+            next();
+          } else if (state == State.OPEN) {
+            commit();
+          }
+          // otherwise stopped once the ongoing transaction is done
+          break;
+      }
+    });
+    return promise.future();
+  }
+
+  @Override
+  public long committedTransactions() {
+    return committedTransactions.sum();
+  }
+
+  @Override
+  public long abortedTransactions() {
+    return abortedTransactions.sum();
+  }
+
+  private <T> Future<T> onContext(Future<T> future) {
+    Promise<T> promise = context.promise();
+    future.onComplete(promise);
+    return promise.future();
+  }
+
+  private void handle(ConsumerRecord<K, V> record) {
+    ContextInternal current = (ContextInternal) Vertx.currentContext();
+    if (current != null && current.unwrap() == context.unwrap()) {
+      receive(record);
+    } else {
+      context.runOnContext(v -> receive(record));
+    }
+  }
+
+  private void receive(ConsumerRecord<K, V> record) {
+    if (state == State.OPEN) {
+      process(record);
+    } else if (state != State.FAILED) {
+      // the consumer is paused until a transaction is open
+      queued.add(record);
+      consumer.pause();
+      if (state == State.IDLE) {
+        begin();
+      }
+    }
+  }
+
+  private void begin() {
+    state = State.BEGINNING;
+    onContext(producer.beginTransaction()).onComplete(ar -> {
+      if (ar.failed()) {
+        fail(ar.cause());
+        return;
+      }
+      state = State.OPEN;
+      timer = vertx.setTimer(maxTime, id -> {
+        timer = -1L;
+        if (state == State.OPEN) {
+          commit();
+        }
+      });
+      ConsumerRecord<K, V> record;
+      while (state == State.OPEN && (record = queued.poll()) != null) {
+        process(record);
+      }
+      if (state == State.OPEN) {
+        if (stopPromise != null) {
+          commit();
+        } else {
+          consumer.resume();
+        }
+      }
+    });
+  }
+
+  private void process(ConsumerRecord<K, V> record) {
+    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+    firstOffsets.putIfAbsent(partition, record.offset());
+    List<ProducerRecord<KO, VO>> results;
+    try {
+      results = transform.apply(record);
+    } catch (Exception e) {
+      if (!retriesExhausted(partition, record.offset())) {
+        abort(e);
+        return;
+      }
+      results = skip(record, e);
+    }
+    offsets.put(partition, new OffsetAndMetadata(record.offset() + 1));
+    if (results != null) {
+      for (ProducerRecord<KO, VO> result : results) {
+        sends.add(producer.send(result));
+      }
+    }
+    if (++records >= maxRecords) {
+      commit();
+    }
+  }
+
+  /**
+   * Count a transform failure of the record at {@code offset}.
+   *
+   * @return whether the record failed more than the maximum number of retries
+   */
+  private boolean retriesExhausted(TopicPartition partition, long offset) {
+    if (partition.equals(failedPartition) && offset == failedOffset) {
+      failures++;
+    } else {
+      failedPartition = partition;
+      failedOffset = offset;
+      failures = 1;
+    }
+    return failures > maxRetries;
+  }
+
+  /**
+   * Skip a record which cannot be transformed, its offset is committed with the records of the dead letter handler.
+   */
+  private List<ProducerRecord<KO, VO>> skip(ConsumerRecord<K, V> record, Exception cause) {
+    report(cause);
+    BiFunction<ConsumerRecord<K, V>, Throwable, List<ProducerRecord<KO, VO>>> handler = deadLetterHandler;
+    if (handler == null) {
+      return null;
+    }
+    try {
+      return handler.apply(record, cause);
+    } catch (Exception e) {
+      e.addSuppressed(cause);
+      report(e);
+      return null;
+    }
+  }
+
+  private void commit() {
+    state = State.COMMITTING;
+    cancelTimer();
+    consumer.pause();
+    Map<TopicPartition, OffsetAndMetadata> committed = new HashMap<>(offsets);
+    Future<Void> fut = Future.all(new ArrayList<>(sends))
+      .compose(v -> consumer.groupMetadata())
+      .compose(groupMetadata -> producer.sendOffsetsToTransaction(committed, groupMetadata))
+      .compose(v -> producer.commitTransaction());
+    onContext(fut).onComplete(ar -> {
+      if (ar.succeeded()) {
+        committedTransactions.increment();
+        clear();
+        state = State.IDLE;
+        next();
+      } else {
+        abort(ar.cause());
+      }
+    });
+  }
+
+  private void abort(Throwable cause) {
+    state = State.ABORTING;
+    cancelTimer();
+    consumer.pause();
+    onContext(producer.abortTransaction()).onComplete(ar -> {
+      if (ar.failed()) {
+        // the producer cannot be used anymore, e.g. it has been fenced
+        ar.cause().addSuppressed(cause);
+        fail(ar.cause());
+        return;
+      }
+      abortedTransactions.increment();
+      rewind(cause);
+    });
+  }
+
+  /**
+   * Seek the consumer back to the first record of the aborted transaction, or the first record received after it.
+   */
+  private void rewind(Throwable cause) {
+    Map<TopicPartition, Long> positions = new HashMap<>(firstOffsets);
+    for (ConsumerRecord<K, V> record : queued) {
+      positions.putIfAbsent(new TopicPartition(record.topic(), record.partition()), record.offset());
+    }
+    clear();
+    queued.clear();
+    List<Future<Void>> seeks = new ArrayList<>(positions.size());
+    positions.forEach((partition, offset) -> seeks.add(consumer.seek(partition, offset)));
+    onContext(Future.all(seeks)).onComplete(ar -> {
+      if (ar.failed()) {
+        ar.cause().addSuppressed(cause);
+        fail(ar.cause());
+        return;
+      }
+      state = State.IDLE;
+      report(cause);
+      next();
+    });
+  }
+
+  private void next() {
+    if (stopPromise != null) {
+      Promise<Void> promise = stopPromise;
+      stopPromise = null;
+      state = State.STOPPED;
+      promise.complete();
+    } else if (!queued.isEmpty()) {
+      begin();
+    } else {
+      consumer.resume();
+    }
+  }
+
+  private void fail(Throwable cause) {
+    state = State.FAILED;
+    cancelTimer();
+    consumer.pause();
+    report(cause);
+    if (stopPromise != null) {
+      Promise<Void> promise = stopPromise;
+      stopPromise = null;
+      promise.complete();
+    }
+  }
+
+  private void clear() {
+    firstOffsets.clear();
+    offsets.clear();
+    sends.clear();
+    records = 0;
+  }
+
+  private void cancelTimer() {
+    if (timer != -1L) {
+      vertx.cancelTimer(timer);
+      timer = -1L;
+    }
+  }
+
+  private void report(Throwable cause) {
+    Handler<Throwable> handler = exceptionHandler;
+    if (handler != null) {
+      handler.handle(cause);
+    }
+  }
+}
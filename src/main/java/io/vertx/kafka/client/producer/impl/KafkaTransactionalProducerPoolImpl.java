@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.kafka.client.producer.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.kafka.client.consumer.KafkaReadStream;
+import io.vertx.kafka.client.producer.KafkaProducer;
+import io.vertx.kafka.client.producer.KafkaTransactionalProducerPool;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The producers are created on demand, the future of a producer is removed from the pool when its transactions
+ * cannot be initialized, so the next request creates a new one.
+ */
+public class KafkaTransactionalProducerPoolImpl<K, V> implements KafkaTransactionalProducerPool<K, V> {
+
+  private final String transactionalIdPrefix;
+  private final Function<String, KafkaProducer<K, V>> factory;
+  private final Map<TopicPartition, Future<KafkaProducer<K, V>>> producers = new ConcurrentHashMap<>();
+  private Handler<Throwable> exceptionHandler;
+
+  public KafkaTransactionalProducerPoolImpl(String transactionalIdPrefix, Function<String, KafkaProducer<K, V>> factory) {
+    this.transactionalIdPrefix = transactionalIdPrefix;
+    this.factory = factory;
+  }
+
+  @Override
+  public synchronized KafkaTransactionalProducerPoolImpl<K, V> exceptionHandler(Handler<Throwable> handler) {
+    this.exceptionHandler = handler;
+    return this;
+  }
+
+  @Override
+  public KafkaTransactionalProducerPoolImpl<K, V> bind(KafkaReadStream<?, ?> consumer) {
+    return bind(consumer, null, null);
+  }
+
+  @Override
+  public KafkaTransactionalProducerPoolImpl<K, V> bind(KafkaReadStream<?, ?> consumer,
+                                                       Handler<Set<TopicPartition>> partitionsAssignedHandler,
+                                                       Handler<Set<TopicPartition>> partitionsRevokedHandler) {
+    consumer.partitionsAssignedHandler(partitions -> assign(partitions).onComplete(ar -> {
+      if (ar.failed()) {
+        report(ar.cause());
+      }
+      if (partitionsAssignedHandler != null) {
+        partitionsAssignedHandler.handle(partitions);
+      }
+    }));
+    consumer.partitionsRevokedHandler(partitions -> {
+      if (partitionsRevokedHandler != null) {
+        partitionsRevokedHandler.handle(partitions);
+      }
+      revoke(partitions).onFailure(this::report);
+    });
+    return this;
+  }
+
+  private void report(Throwable err) {
+    Handler<Throwable> handler;
+    synchronized (this) {
+      handler = exceptionHandler;
+    }
+    if (handler != null) {
+      handler.handle(err);
+    }
+  }
+
+  @Override
+  public Future<KafkaProducer<K, V>> producer(TopicPartition partition) {
+    Future<KafkaProducer<K, V>> existing = producers.get(partition);
+    if (existing != null) {
+      return existing;
+    }
+    Promise<KafkaProducer<K, V>> promise = Promise.promise();
+    Future<KafkaProducer<K, V>> future = promise.future();
+    existing = producers.putIfAbsent(partition, future);
+    if (existing != null) {
+      return existing;
+    }
+    KafkaProducer<K, V> producer;
+    try {
+      producer = factory.apply(KafkaTransactionalProducerPool.transactionalId(transactionalIdPrefix, partition));
+    } catch (Exception e) {
+      producers.remove(partition, future);
+      promise.fail(e);
+      return future;
+    }
+    // fences the producers with the same transactional.id and aborts their ongoing transaction
+    producer.initTransactions().onComplete(ar -> {
+      if (ar.succeeded()) {
+        promise.complete(producer);
+      } else {
+        producers.remove(partition, future);
+        producer.close();
+        promise.fail(ar.cause());
+      }
+    });
+    return future;
+  }
+
+  @Override
+  public Future<Void> assign(Set<TopicPartition> partitions) {
+    List<Future<KafkaProducer<K, V>>> futures = new ArrayList<>(partitions.size());
+    for (TopicPartition partition : partitions) {
+      futures.add(producer(partition));
+    }
+    return Future.all(futures).mapEmpty();
+  }
+
+  @Override
+  public Future<Void> revoke(Set<TopicPartition> partitions) {
+    List<Future<Void>> futures = new ArrayList<>(partitions.size());
+    for (TopicPartition partition : partitions) {
+      Future<KafkaProducer<K, V>> future = producers.remove(partition);
+      if (future != null) {
+        // closing the producer aborts its ongoing transaction
+        futures.add(future.transform(ar -> ar.succeeded() ? ar.result().close() : Future.succeededFuture()));
+      }
+    }
+    return Future.all(futures).mapEmpty();
+  }
+
+  @Override
+  public Set<TopicPartition> partitions() {
+    return new HashSet<>(producers.keySet());
+  }
+
+  @Override
+  public Future<Void> close() {
+    return revoke(partitions());
+  }
+}
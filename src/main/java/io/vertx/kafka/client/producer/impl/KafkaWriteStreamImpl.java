@@ -16,25 +16,54 @@
 
 package io.vertx.kafka.client.producer.impl;
 
+import io.netty.buffer.ByteBufUtil;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.impl.ContextInternal;
 import io.vertx.core.impl.TaskQueue;
 import io.vertx.core.impl.VertxInternal;
 import io.vertx.kafka.client.common.KafkaClientOptions;
 import io.vertx.kafka.client.common.tracing.ProducerTracer;
 import io.vertx.kafka.client.producer.KafkaWriteStream;
+import io.vertx.kafka.client.producer.RecordCoalescedException;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
 import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.utils.Bytes;
 
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * Kafka write stream implementation
@@ -49,6 +78,36 @@ public class KafkaWriteStreamImpl<K, V> implements KafkaWriteStream<K, V> {
   private final VertxInternal vertx;
   private final ProducerTracer tracer;
   private final TaskQueue taskQueue;
+  private final boolean directSend;
+  // topics whose metadata the producer knows, with the last time a record was sent to them
+  private final Map<String, Long> knownTopics;
+  // sends handed to the worker which did not return yet, a record cannot be sent directly before them
+  private final AtomicInteger blockingSends = new AtomicInteger();
+  private final long metadataMaxIdle;
+  private final long bufferMemory;
+  // completions of the sends in flight, by event loop context
+  private final Map<ContextInternal, Completions> completions = new ConcurrentHashMap<>();
+  private final boolean fireAndForget;
+  private final LongAdder acknowledgedRecords = new LongAdder();
+  private final LongAdder failedRecords = new LongAdder();
+  private final boolean bufferMemoryBackpressure;
+  private final Transactions transactions;
+  private final long coalesceWindow;
+  private final LongAdder coalescedRecords = new LongAdder();
+  // records held for coalescing, by topic, partition and key
+  private final Map<CoalescingKey, Coalescing> coalescing = new HashMap<>();
+  private final long rateLimitBurst;
+  private final long maxRecordsPerSecond;
+  private final long maxBytesPerSecond;
+  private final RateLimiter rateLimiter;
+  // whether closing the stream closes the producer, the streams sharing the producer of another stream do not
+  private final boolean ownsProducer;
+  private long drainTimer = -1L;
+  private final Future<Void> ready;
+  private final long warmUpTimer;
+  private volatile Metric bufferAvailableBytes;
+  // moving average of the serialized size of the records, used for the keys and values that cannot be measured
+  private volatile long averageSize = 1024;
 
   public KafkaWriteStreamImpl(Vertx vertx, Producer<K, V> producer, KafkaClientOptions options) {
     ContextInternal ctxInt = ((ContextInternal) vertx.getOrCreateContext()).unwrap();
@@ -56,84 +115,617 @@ public class KafkaWriteStreamImpl<K, V> implements KafkaWriteStream<K, V> {
     this.vertx = (VertxInternal) vertx;
     this.tracer = ProducerTracer.create(ctxInt.tracer(), options);
     this.taskQueue = new TaskQueue();
+    this.directSend = options.isDirectSend();
+    this.knownTopics = new ConcurrentHashMap<>();
+    this.transactions = options.isAutoTransactions() ? new Transactions(options) : null;
+    this.coalesceWindow = options.getCoalesceWindow();
+    this.rateLimitBurst = options.getRateLimitBurst();
+    this.maxRecordsPerSecond = options.getMaxRecordsPerSecond();
+    this.maxBytesPerSecond = options.getMaxBytesPerSecond();
+    this.rateLimiter = new RateLimiter(this.vertx, rateLimitBurst);
+    this.rateLimiter.limit(maxRecordsPerSecond, maxBytesPerSecond);
+    this.ownsProducer = true;
+    // the completion of a write follows the commit of its transaction or the send of the record replacing it
+    this.fireAndForget = options.isFireAndForget() && transactions == null && coalesceWindow == 0L;
+    this.bufferMemoryBackpressure = options.isBufferMemoryBackpressure();
+    Map<String, Object> config = options.getConfig();
+    this.metadataMaxIdle = TimeUnit.MILLISECONDS.toNanos(longConfig(config, ProducerConfig.METADATA_MAX_IDLE_CONFIG, 5 * 60 * 1000L));
+    this.bufferMemory = longConfig(config, ProducerConfig.BUFFER_MEMORY_CONFIG, 32 * 1024 * 1024L);
+    List<String> warmUpTopics = options.getWarmUpTopics();
+    if (warmUpTopics == null || warmUpTopics.isEmpty()) {
+      this.ready = Future.succeededFuture();
+      this.warmUpTimer = -1L;
+    } else {
+      List<String> topics = new ArrayList<>(warmUpTopics);
+      this.ready = fetchMetadata(topics);
+      // keep the metadata from expiring, the producer forgets it after metadata.max.idle.ms without use
+      long interval = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(metadataMaxIdle / 2));
+      this.warmUpTimer = this.vertx.setPeriodic(interval, id -> fetchMetadata(topics).onFailure(err -> {
+        if (!(err instanceof TimeoutException)) {
+          // the producer is closed or a topic is invalid
+          this.vertx.cancelTimer(id);
+        }
+      }));
+    }
+  }
+
+  /**
+   * Create a stream writing to the producer of a shared stream: it is configured with the options of the shared
+   * stream and shares its metadata and transactions, but has its own write queue, handlers, rate limit and records
+   * held for coalescing. Closing it does not close the producer.
+   */
+  private KafkaWriteStreamImpl(KafkaWriteStreamImpl<K, V> shared) {
+    this.producer = shared.producer;
+    this.vertx = shared.vertx;
+    this.tracer = shared.tracer;
+    this.taskQueue = new TaskQueue();
+    this.directSend = shared.directSend;
+    this.knownTopics = shared.knownTopics;
+    this.transactions = shared.transactions;
+    this.coalesceWindow = shared.coalesceWindow;
+    this.rateLimitBurst = shared.rateLimitBurst;
+    this.maxRecordsPerSecond = shared.maxRecordsPerSecond;
+    this.maxBytesPerSecond = shared.maxBytesPerSecond;
+    this.rateLimiter = new RateLimiter(this.vertx, rateLimitBurst);
+    this.rateLimiter.limit(maxRecordsPerSecond, maxBytesPerSecond);
+    this.ownsProducer = false;
+    this.fireAndForget = shared.fireAndForget;
+    this.bufferMemoryBackpressure = shared.bufferMemoryBackpressure;
+    this.metadataMaxIdle = shared.metadataMaxIdle;
+    this.bufferMemory = shared.bufferMemory;
+    this.ready = shared.ready;
+    this.warmUpTimer = -1L;
+  }
+
+  /**
+   * @return a new stream writing to the producer of this stream, see {@link #KafkaWriteStreamImpl(KafkaWriteStreamImpl)}
+   */
+  public KafkaWriteStreamImpl<K, V> share() {
+    return new KafkaWriteStreamImpl<>(this);
+  }
+
+  private Future<Void> fetchMetadata(List<String> topics) {
+    return vertx.executeBlocking(() -> {
+      for (String topic : topics) {
+        this.producer.partitionsFor(topic);
+        knownTopics.put(topic, System.nanoTime());
+      }
+      return null;
+    }, false);
+  }
+
+  @Override
+  public Future<Void> ready() {
+    return ready;
+  }
+
+  private static long longConfig(Map<String, Object> config, String name, long defaultValue) {
+    Object value = config != null ? config.get(name) : null;
+    if (value instanceof Number) {
+      return ((Number) value).longValue();
+    } else if (value != null) {
+      return Long.parseLong(value.toString().trim());
+    }
+    return defaultValue;
   }
 
-  private int len(Object value) {
-    if (value instanceof byte[]) {
+  /**
+   * @return the size of the record key, value and headers, strings are measured by their UTF-8 encoded length,
+   *         estimated from the serialized size of the records acknowledged so far when a key or a value cannot
+   *         be measured before serialization
+   */
+  private long len(ProducerRecord<K, V> record) {
+    long len = len(record.key()) + len(record.value());
+    for (Header header : record.headers()) {
+      len += ByteBufUtil.utf8Bytes(header.key()) + (header.value() != null ? header.value().length : 0);
+    }
+    return Math.max(len, 1);
+  }
+
+  private long len(Object value) {
+    if (value == null) {
+      return 0;
+    } else if (value instanceof byte[]) {
       return ((byte[])value).length;
     } else if (value instanceof String) {
-      return ((String)value).length();
+      return ByteBufUtil.utf8Bytes((String)value);
+    } else if (value instanceof Buffer) {
+      return ((Buffer)value).length();
+    } else if (value instanceof ByteBuffer) {
+      return ((ByteBuffer)value).remaining();
+    } else if (value instanceof Bytes) {
+      return ((Bytes)value).get().length;
     } else {
-      return 1;
+      return averageSize;
     }
   }
 
+  /**
+   * Release the size of acknowledged records.
+   *
+   * @return the drain handler to call, if any
+   */
+  private synchronized Handler<Void> release(long len) {
+    this.pending -= len;
+    long lowWaterMark = this.maxSize / 2;
+    if (this.pending < lowWaterMark && this.drainHandler != null && (this.pending == 0 || !bufferMemoryLow())) {
+      if (rateLimiter.delay() > 0L) {
+        scheduleDrain();
+        return null;
+      }
+      Handler<Void> drainHandler = this.drainHandler;
+      this.drainHandler = null;
+      return drainHandler;
+    }
+    return null;
+  }
+
+  /**
+   * @return whether the producer has less than a quarter of its buffer memory available, when enabled
+   */
+  private boolean bufferMemoryLow() {
+    if (!bufferMemoryBackpressure) {
+      return false;
+    }
+    Metric metric = bufferAvailableBytes;
+    if (metric == null) {
+      for (Map.Entry<MetricName, ? extends Metric> entry : producer.metrics().entrySet()) {
+        if ("buffer-available-bytes".equals(entry.getKey().name()) && "producer-metrics".equals(entry.getKey().group())) {
+          metric = entry.getValue();
+          bufferAvailableBytes = metric;
+          break;
+        }
+      }
+      if (metric == null) {
+        return false;
+      }
+    }
+    Object value = metric.metricValue();
+    return value instanceof Number && ((Number) value).doubleValue() < bufferMemory / 4d;
+  }
+
   @Override
   public Future<RecordMetadata> send(ProducerRecord<K, V> record) {
     ContextInternal ctx = vertx.getOrCreateContext();
     ProducerTracer.StartedSpan startedSpan = this.tracer == null ? null : this.tracer.prepareSendMessage(ctx, record);
-    int len = this.len(record.value());
-    this.pending += len;
+    long len = this.len(record);
+    synchronized (this) {
+      this.pending += len;
+    }
+    if (coalesceWindow > 0L && record.key() != null) {
+      return coalesce(ctx, record, startedSpan, len);
+    }
+    return sendNow(ctx, record, startedSpan, len);
+  }
+
+  private Future<RecordMetadata> sendNow(ContextInternal ctx, ProducerRecord<K, V> record, ProducerTracer.StartedSpan startedSpan, long len) {
+    if (rateLimiter.isEnabled()) {
+      Promise<RecordMetadata> promise = ctx.promise();
+      rateLimiter.submit(1, len, () -> dispatch(ctx, record, startedSpan, len).onComplete(promise));
+      return promise.future();
+    }
+    return dispatch(ctx, record, startedSpan, len);
+  }
+
+  private Future<RecordMetadata> dispatch(ContextInternal ctx, ProducerRecord<K, V> record, ProducerTracer.StartedSpan startedSpan, long len) {
+    if (transactions != null) {
+      return transactions.send(ctx, 1, () -> doSend(ctx, record, startedSpan, len));
+    }
+    if (canSendDirectly(record)) {
+      return doSend(ctx, record, startedSpan, len);
+    }
+    blockingSends.incrementAndGet();
     return ctx.executeBlocking(() -> {
-      Promise<RecordMetadata> prom = ctx.promise();
       try {
-        this.producer.send(record, (metadata, err) -> {
+        return doSend(ctx, record, startedSpan, len);
+      } finally {
+        blockingSends.decrementAndGet();
+      }
+    }, taskQueue)
+      .compose(f -> f);
+  }
+
+  /**
+   * A send does not block when the topic metadata is cached by the producer and the producer buffer has room for
+   * the record, sends are then issued from the calling thread unless earlier sends are still queued on the worker.
+   */
+  private boolean canSendDirectly(ProducerRecord<K, V> record) {
+    if (!directSend || blockingSends.get() > 0 || !isKnownTopic(record.topic())) {
+      return false;
+    }
+    synchronized (this) {
+      return pending < bufferMemory / 2;
+    }
+  }
+
+  private boolean canSendDirectly(List<ProducerRecord<K, V>> records) {
+    if (!directSend || blockingSends.get() > 0) {
+      return false;
+    }
+    for (ProducerRecord<K, V> record : records) {
+      if (!isKnownTopic(record.topic())) {
+        return false;
+      }
+    }
+    synchronized (this) {
+      return pending < bufferMemory / 2;
+    }
+  }
 
-          // callback from Kafka IO thread
-          ctx.runOnContext(v1 -> {
-            synchronized (KafkaWriteStreamImpl.this) {
-
-              // if exception happens, no record written
-              if (err != null) {
-
-                if (this.exceptionHandler != null) {
-                  Handler<Throwable> exceptionHandler = this.exceptionHandler;
-                  ctx.runOnContext(v2 -> exceptionHandler.handle(err));
-                }
-              }
-
-              long lowWaterMark = this.maxSize / 2;
-              this.pending -= len;
-              if (this.pending < lowWaterMark && this.drainHandler != null) {
-                Handler<Void> drainHandler = this.drainHandler;
-                this.drainHandler = null;
-                ctx.runOnContext(drainHandler);
-              }
+  private void acknowledged(ProducerRecord<K, V> record, RecordMetadata metadata, Throwable err) {
+    if (err != null) {
+      failedRecords.increment();
+    } else {
+      acknowledgedRecords.increment();
+      long size = Math.max(metadata.serializedKeySize(), 0) + Math.max(metadata.serializedValueSize(), 0);
+      long average = averageSize;
+      averageSize = average + (size - average) / 8;
+    }
+    if (directSend) {
+      // a send that failed may have been waiting on metadata, it cannot be assumed known anymore
+      if (err != null) {
+        knownTopics.remove(record.topic());
+      } else {
+        knownTopics.put(record.topic(), System.nanoTime());
+      }
+    }
+  }
+
+  private boolean isKnownTopic(String topic) {
+    Long lastSend = knownTopics.get(topic);
+    // the producer forgets the metadata of topics it did not send to for metadata.max.idle.ms
+    return lastSend != null && System.nanoTime() - lastSend <= metadataMaxIdle / 2;
+  }
+
+  private Future<RecordMetadata> doSend(ContextInternal ctx, ProducerRecord<K, V> record, ProducerTracer.StartedSpan startedSpan, long len) {
+    Promise<RecordMetadata> prom = ctx.promise();
+    Completions completions = completionsOf(ctx);
+    try {
+      this.producer.send(record, (metadata, err) -> {
+
+        // callback from Kafka IO thread
+        acknowledged(record, metadata, err);
+        if (startedSpan != null) {
+          if (err != null) {
+            startedSpan.fail(ctx, err);
+          } else {
+            startedSpan.finish(ctx);
+          }
+        }
+        completions.add(new Completion(ctx, prom, len, metadata, err));
+      });
+    } catch (Throwable e) {
+      completions.cancel();
+      Handler<Throwable> exceptionHandler;
+      synchronized (this) {
+        exceptionHandler = this.exceptionHandler;
+      }
+      // the record is not written, its size is released from the write queue
+      Handler<Void> drainHandler = release(len);
+      if (exceptionHandler != null) {
+        ctx.runOnContext(v3 -> exceptionHandler.handle(e));
+      }
+      if (drainHandler != null) {
+        ctx.runOnContext(drainHandler);
+      }
+      if (startedSpan != null) {
+        startedSpan.fail(ctx, e);
+      }
+      prom.fail(e);
+    }
+    return prom.future();
+  }
+
+  /**
+   * @return the completions of the sends issued on the context, expecting the completion of one more send
+   */
+  private Completions completionsOf(ContextInternal ctx) {
+    Completions completions = this.completions.computeIfAbsent(ctx.unwrap(), Completions::new);
+    completions.outstanding.incrementAndGet();
+    return completions;
+  }
+
+  /**
+   * Hold a record for the coalesce window, replacing the record held with the same topic, partition and key. The
+   * send of the replaced record fails with a {@link RecordCoalescedException}.
+   *
+   * @return a future completed with the result of the send of the record, unless it is replaced
+   */
+  private Future<RecordMetadata> coalesce(ContextInternal ctx, ProducerRecord<K, V> record, ProducerTracer.StartedSpan startedSpan, long len) {
+    Promise<RecordMetadata> promise = ctx.promise();
+    CoalescingKey key = new CoalescingKey(record);
+    Coalescing superseded = null;
+    synchronized (coalescing) {
+      Coalescing held = coalescing.get(key);
+      if (held == null) {
+        Coalescing coalesced = new Coalescing(ctx, record, startedSpan, len, promise);
+        coalescing.put(key, coalesced);
+        coalesced.timer = vertx.setTimer(coalesceWindow, id -> sendCoalesced(key, coalesced));
+      } else {
+        superseded = new Coalescing(held.context, held.record, held.startedSpan, held.len, held.promise);
+        held.context = ctx;
+        held.record = record;
+        held.startedSpan = startedSpan;
+        held.len = len;
+        held.promise = promise;
+      }
+    }
+    if (superseded != null) {
+      coalescedRecords.increment();
+      RecordCoalescedException failure = new RecordCoalescedException();
+      if (superseded.startedSpan != null) {
+        superseded.startedSpan.fail(superseded.context, failure);
+      }
+      Handler<Void> drainHandler = release(superseded.len);
+      if (drainHandler != null) {
+        superseded.context.runOnContext(drainHandler);
+      }
+      superseded.promise.fail(failure);
+    }
+    return promise.future();
+  }
+
+  private void sendCoalesced(CoalescingKey key, Coalescing coalesced) {
+    synchronized (coalescing) {
+      if (!coalescing.remove(key, coalesced)) {
+        // already sent by a flush
+        return;
+      }
+    }
+    sendCoalesced(coalesced);
+  }
+
+  private void sendCoalesced(Coalescing coalesced) {
+    // removed from the held records, the record cannot be replaced anymore
+    sendNow(coalesced.context, coalesced.record, coalesced.startedSpan, coalesced.len).onComplete(coalesced.promise);
+  }
+
+  /**
+   * Send the records held for coalescing without waiting for the end of their window.
+   */
+  private void flushCoalesced() {
+    List<Coalescing> held;
+    synchronized (coalescing) {
+      if (coalescing.isEmpty()) {
+        return;
+      }
+      held = new ArrayList<>(coalescing.values());
+      coalescing.clear();
+    }
+    for (Coalescing coalesced : held) {
+      vertx.cancelTimer(coalesced.timer);
+      sendCoalesced(coalesced);
+    }
+  }
+
+  /**
+   * Send the records held with the topic, partition and key of records about to be sent without coalescing, so
+   * that the held records are not written after them.
+   */
+  private void flushCoalesced(List<ProducerRecord<K, V>> records) {
+    List<Coalescing> held = null;
+    synchronized (coalescing) {
+      if (coalescing.isEmpty()) {
+        return;
+      }
+      for (ProducerRecord<K, V> record : records) {
+        if (record.key() != null) {
+          Coalescing coalesced = coalescing.remove(new CoalescingKey(record));
+          if (coalesced != null) {
+            if (held == null) {
+              held = new ArrayList<>();
             }
-          });
+            held.add(coalesced);
+          }
+        }
+      }
+    }
+    if (held != null) {
+      for (Coalescing coalesced : held) {
+        vertx.cancelTimer(coalesced.timer);
+        sendCoalesced(coalesced);
+      }
+    }
+  }
+
+  @Override
+  public Future<List<RecordMetadata>> sendBatch(List<ProducerRecord<K, V>> records) {
+    ContextInternal ctx = vertx.getOrCreateContext();
+    if (records.isEmpty()) {
+      return ctx.succeededFuture(Collections.emptyList());
+    }
+    List<ProducerTracer.StartedSpan> startedSpans = this.tracer == null ? null : new ArrayList<>(records.size());
+    long len = 0;
+    for (ProducerRecord<K, V> record : records) {
+      if (startedSpans != null) {
+        startedSpans.add(this.tracer.prepareSendMessage(ctx, record));
+      }
+      len += this.len(record);
+    }
+    long batchLen = len;
+    synchronized (this) {
+      this.pending += batchLen;
+    }
+    if (coalesceWindow > 0L) {
+      flushCoalesced(records);
+    }
+    if (rateLimiter.isEnabled()) {
+      Promise<List<RecordMetadata>> promise = ctx.promise();
+      rateLimiter.submit(records.size(), batchLen, () -> dispatchBatch(ctx, records, startedSpans, batchLen).onComplete(promise));
+      return promise.future();
+    }
+    return dispatchBatch(ctx, records, startedSpans, batchLen);
+  }
+
+  private Future<List<RecordMetadata>> dispatchBatch(ContextInternal ctx, List<ProducerRecord<K, V>> records, List<ProducerTracer.StartedSpan> startedSpans, long batchLen) {
+    if (transactions != null) {
+      return transactions.send(ctx, records.size(), () -> doSendBatch(ctx, records, startedSpans, batchLen));
+    }
+    if (canSendDirectly(records)) {
+      return doSendBatch(ctx, records, startedSpans, batchLen);
+    }
+    blockingSends.incrementAndGet();
+    return ctx.executeBlocking(() -> {
+      try {
+        return doSendBatch(ctx, records, startedSpans, batchLen);
+      } finally {
+        blockingSends.decrementAndGet();
+      }
+    }, taskQueue)
+      .compose(f -> f);
+  }
 
+  private Future<List<RecordMetadata>> doSendBatch(ContextInternal ctx, List<ProducerRecord<K, V>> records, List<ProducerTracer.StartedSpan> startedSpans, long len) {
+    Promise<List<RecordMetadata>> prom = ctx.promise();
+    RecordMetadata[] results = new RecordMetadata[records.size()];
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    AtomicInteger remaining = new AtomicInteger(records.size());
+    for (int i = 0;i < records.size();i++) {
+      ProducerRecord<K, V> record = records.get(i);
+      ProducerTracer.StartedSpan startedSpan = startedSpans != null ? startedSpans.get(i) : null;
+      int index = i;
+      try {
+        this.producer.send(record, (metadata, err) -> {
+
+          // callback from Kafka IO thread, the batch is completed on the context once all its records are
+          acknowledged(record, metadata, err);
           if (err != null) {
+            failure.compareAndSet(null, err);
             if (startedSpan != null) {
               startedSpan.fail(ctx, err);
             }
-            prom.fail(err);
           } else {
+            results[index] = metadata;
             if (startedSpan != null) {
               startedSpan.finish(ctx);
             }
-            prom.complete(metadata);
+          }
+          if (remaining.decrementAndGet() == 0) {
+            ctx.runOnContext(v -> completeBatch(prom, results, failure.get(), len));
           }
         });
       } catch (Throwable e) {
-        synchronized (KafkaWriteStreamImpl.this) {
-          if (this.exceptionHandler != null) {
-            Handler<Throwable> exceptionHandler = this.exceptionHandler;
-            ctx.runOnContext(v3 -> exceptionHandler.handle(e));
-          }
-        }
+        failure.compareAndSet(null, e);
         if (startedSpan != null) {
           startedSpan.fail(ctx, e);
         }
-        prom.fail(e);
+        if (remaining.decrementAndGet() == 0) {
+          ctx.runOnContext(v -> completeBatch(prom, results, failure.get(), len));
+        }
       }
-      return prom.future();
-    }, taskQueue)
-      .compose(f -> f);
+    }
+    return prom.future();
+  }
+
+  private void completeBatch(Promise<List<RecordMetadata>> prom, RecordMetadata[] results, Throwable failure, long len) {
+    Handler<Throwable> exceptionHandler;
+    synchronized (this) {
+      exceptionHandler = this.exceptionHandler;
+    }
+    Handler<Void> drainHandler = release(len);
+    if (failure != null && exceptionHandler != null) {
+      exceptionHandler.handle(failure);
+    }
+    if (drainHandler != null) {
+      drainHandler.handle(null);
+    }
+    if (failure != null) {
+      prom.fail(failure);
+    } else {
+      prom.complete(Arrays.asList(results));
+    }
   }
 
   @Override
   public Future<Void> write(ProducerRecord<K, V> record) {
-    return this.send(record).mapEmpty();
+    if (fireAndForget) {
+      forget(record);
+      return Future.succeededFuture();
+    }
+    Future<RecordMetadata> fut = this.send(record);
+    if (coalesceWindow > 0L) {
+      // the write of a replaced record is complete, the record replacing it carries its update
+      return fut.<Void>mapEmpty().recover(err -> err instanceof RecordCoalescedException ? Future.<Void>succeededFuture() : Future.<Void>failedFuture(err));
+    }
+    return fut.mapEmpty();
+  }
+
+  /**
+   * Write a record without tracking its completion: the pending size is released in batches and failures are only
+   * reported to the exception handler.
+   */
+  private void forget(ProducerRecord<K, V> record) {
+    ContextInternal ctx = vertx.getOrCreateContext();
+    ProducerTracer.StartedSpan startedSpan = this.tracer == null ? null : this.tracer.prepareSendMessage(ctx, record);
+    long len = this.len(record);
+    synchronized (this) {
+      this.pending += len;
+    }
+    if (rateLimiter.isEnabled()) {
+      rateLimiter.submit(1, len, () -> dispatchForget(ctx, record, startedSpan, len));
+    } else {
+      dispatchForget(ctx, record, startedSpan, len);
+    }
+  }
+
+  private void dispatchForget(ContextInternal ctx, ProducerRecord<K, V> record, ProducerTracer.StartedSpan startedSpan, long len) {
+    Completions completions = completionsOf(ctx);
+    if (canSendDirectly(record)) {
+      doForget(ctx, completions, record, startedSpan, len);
+      return;
+    }
+    blockingSends.incrementAndGet();
+    ctx.executeBlocking(() -> {
+      try {
+        doForget(ctx, completions, record, startedSpan, len);
+      } finally {
+        blockingSends.decrementAndGet();
+      }
+      return null;
+    }, taskQueue);
+  }
+
+  private void doForget(ContextInternal ctx, Completions completions, ProducerRecord<K, V> record, ProducerTracer.StartedSpan startedSpan, long len) {
+    try {
+      this.producer.send(record, (metadata, err) -> {
+
+        // callback from Kafka IO thread
+        acknowledged(record, metadata, err);
+        if (startedSpan != null) {
+          if (err != null) {
+            startedSpan.fail(ctx, err);
+          } else {
+            startedSpan.finish(ctx);
+          }
+        }
+        if (err != null) {
+          completions.add(new Completion(ctx, null, len, null, err));
+        } else {
+          completions.release(len);
+        }
+      });
+    } catch (Throwable e) {
+      failedRecords.increment();
+      if (startedSpan != null) {
+        startedSpan.fail(ctx, e);
+      }
+      completions.add(new Completion(ctx, null, len, null, e));
+    }
+  }
+
+  @Override
+  public long acknowledgedRecords() {
+    return acknowledgedRecords.sum();
+  }
+
+  @Override
+  public long failedRecords() {
+    return failedRecords.sum();
+  }
+
+  @Override
+  public long coalescedRecords() {
+    return coalescedRecords.sum();
   }
 
   @Override
@@ -144,12 +736,43 @@ public class KafkaWriteStreamImpl<K, V> implements KafkaWriteStream<K, V> {
 
   @Override
   public synchronized boolean writeQueueFull() {
-    return (this.pending >= this.maxSize);
+    return (this.pending >= this.maxSize) || (this.pending > 0 && bufferMemoryLow()) || rateLimiter.delay() > 0L;
+  }
+
+  @Override
+  public KafkaWriteStreamImpl<K, V> setRateLimit(long maxRecordsPerSecond, long maxBytesPerSecond) {
+    rateLimiter.limit(maxRecordsPerSecond, maxBytesPerSecond);
+    Handler<Void> drainHandler = release(0L);
+    if (drainHandler != null) {
+      vertx.runOnContext(drainHandler);
+    }
+    return this;
+  }
+
+  /**
+   * Call the drain handler once the rate limiter lets writes go on again, the write queue may be empty by then.
+   */
+  private synchronized void scheduleDrain() {
+    if (drainTimer == -1L) {
+      drainTimer = vertx.setTimer(Math.max(1L, rateLimiter.delay()), id -> {
+        synchronized (this) {
+          drainTimer = -1L;
+        }
+        Handler<Void> drainHandler = release(0L);
+        if (drainHandler != null) {
+          drainHandler.handle(null);
+        }
+      });
+    }
   }
 
   @Override
   public synchronized KafkaWriteStreamImpl<K, V> drainHandler(Handler<Void> handler) {
     this.drainHandler = handler;
+    if (handler != null && rateLimiter.delay() > 0L) {
+      // the write queue may not be released anymore
+      scheduleDrain();
+    }
     return this;
   }
 
@@ -162,22 +785,34 @@ public class KafkaWriteStreamImpl<K, V> implements KafkaWriteStream<K, V> {
 
   @Override
   public Future<Void> initTransactions() {
-    return executeBlocking(this.producer::initTransactions);
+    return userTransaction(this.producer::initTransactions);
   }
 
   @Override
   public Future<Void> beginTransaction() {
-    return executeBlocking(this.producer::beginTransaction);
+    return userTransaction(this.producer::beginTransaction);
   }
 
   @Override
   public Future<Void> commitTransaction() {
-    return executeBlocking(this.producer::commitTransaction);
+    return userTransaction(this.producer::commitTransaction);
   }
 
   @Override
   public Future<Void> abortTransaction() {
-    return executeBlocking(this.producer::abortTransaction);
+    return userTransaction(this.producer::abortTransaction);
+  }
+
+  @Override
+  public Future<Void> sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, ConsumerGroupMetadata groupMetadata) {
+    return userTransaction(() -> this.producer.sendOffsetsToTransaction(offsets, groupMetadata));
+  }
+
+  private Future<Void> userTransaction(BlockingStatement statement) {
+    if (transactions != null) {
+      return Future.failedFuture(new IllegalStateException("The transactions are managed by the stream"));
+    }
+    return executeBlocking(statement);
   }
 
   @Override
@@ -194,6 +829,11 @@ public class KafkaWriteStreamImpl<K, V> implements KafkaWriteStream<K, V> {
 
   @Override
   public Future<Void> flush() {
+    flushCoalesced();
+    rateLimiter.drain();
+    if (transactions != null) {
+      transactions.commit();
+    }
     ContextInternal ctx = vertx.getOrCreateContext();
     return ctx.executeBlocking(() -> {
       this.producer.flush();
@@ -208,7 +848,19 @@ public class KafkaWriteStreamImpl<K, V> implements KafkaWriteStream<K, V> {
 
   @Override
   public Future<Void> close(long timeout) {
+    if (warmUpTimer != -1L) {
+      vertx.cancelTimer(warmUpTimer);
+    }
+    flushCoalesced();
+    // the writes held by the rate limiter are sent before the producer is closed
+    rateLimiter.drain();
+    if (transactions != null) {
+      transactions.commit();
+    }
     ContextInternal ctx = vertx.getOrCreateContext();
+    if (!ownsProducer) {
+      return ctx.succeededFuture();
+    }
     return ctx.executeBlocking(() -> {
       if (timeout > 0) {
         this.producer.close(Duration.ofMillis(timeout));
@@ -232,6 +884,277 @@ public class KafkaWriteStreamImpl<K, V> implements KafkaWriteStream<K, V> {
     }, taskQueue);
   }
 
+  /**
+   * The transactions opened and committed on behalf of the user: the records sent concurrently share the current
+   * transaction, which is committed after a number of records or some time.
+   */
+  private class Transactions {
+
+    private final int maxRecords;
+    private final long maxTime;
+    // only accessed by the tasks of the task queue
+    private boolean initialized;
+    private Promise<Void> current;
+    private int records;
+    private long timer = -1L;
+
+    Transactions(KafkaClientOptions options) {
+      this.maxRecords = options.getTransactionMaxRecords();
+      this.maxTime = options.getTransactionMaxTime();
+    }
+
+    /**
+     * Send records in the current transaction, the send is issued on the task queue after the transaction begins.
+     *
+     * @return a future completed with the result of the send once the transaction is committed
+     */
+    synchronized <T> Future<T> send(ContextInternal ctx, int count, Supplier<Future<T>> send) {
+      if (current == null) {
+        begin();
+      }
+      Future<Void> committed = current.future();
+      blockingSends.incrementAndGet();
+      Future<T> sent = ctx.executeBlocking(() -> {
+        try {
+          return send.get();
+        } finally {
+          blockingSends.decrementAndGet();
+        }
+      }, taskQueue)
+        .compose(f -> f);
+      records += count;
+      if (records >= maxRecords) {
+        commit();
+      }
+      // a failed send fails the commit of the transaction as well
+      return sent.compose(result -> committed.map(result));
+    }
+
+    private void begin() {
+      Promise<Void> promise = Promise.promise();
+      current = promise;
+      executeBlocking(() -> {
+        if (!initialized) {
+          producer.initTransactions();
+          initialized = true;
+        }
+        producer.beginTransaction();
+      });
+      timer = vertx.setTimer(maxTime, id -> {
+        synchronized (this) {
+          if (current == promise) {
+            timer = -1L;
+            commit();
+          }
+        }
+      });
+    }
+
+    /**
+     * Commit the current transaction, if any.
+     */
+    synchronized void commit() {
+      Promise<Void> promise = current;
+      if (promise == null) {
+        return;
+      }
+      current = null;
+      records = 0;
+      if (timer != -1L) {
+        vertx.cancelTimer(timer);
+        timer = -1L;
+      }
+      executeBlocking(() -> {
+        try {
+          producer.commitTransaction();
+        } catch (RuntimeException e) {
+          // the transaction must be aborted before the next one begins, unless the producer cannot be used anymore
+          try {
+            producer.abortTransaction();
+          } catch (RuntimeException abortFailure) {
+            e.addSuppressed(abortFailure);
+          }
+          throw e;
+        }
+      }).onComplete(promise);
+    }
+  }
+
+  /**
+   * The topic, partition and key of a record held for coalescing.
+   */
+  private static final class CoalescingKey {
+
+    private final String topic;
+    private final Integer partition;
+    private final Object key;
+    private final int hash;
+
+    CoalescingKey(ProducerRecord<?, ?> record) {
+      this.topic = record.topic();
+      this.partition = record.partition();
+      this.key = record.key();
+      int keyHash = key instanceof byte[] ? Arrays.hashCode((byte[]) key) : key.hashCode();
+      this.hash = 31 * Objects.hash(topic, partition) + keyHash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CoalescingKey)) {
+        return false;
+      }
+      CoalescingKey that = (CoalescingKey) o;
+      if (hash != that.hash || !topic.equals(that.topic) || !Objects.equals(partition, that.partition)) {
+        return false;
+      }
+      if (key instanceof byte[] && that.key instanceof byte[]) {
+        return Arrays.equals((byte[]) key, (byte[]) that.key);
+      }
+      return key.equals(that.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /**
+   * The last record held with a key and the promise of its send.
+   */
+  private class Coalescing {
+
+    private ContextInternal context;
+    private ProducerRecord<K, V> record;
+    private ProducerTracer.StartedSpan startedSpan;
+    private long len;
+    private Promise<RecordMetadata> promise;
+    private long timer;
+
+    Coalescing(ContextInternal context, ProducerRecord<K, V> record, ProducerTracer.StartedSpan startedSpan, long len, Promise<RecordMetadata> promise) {
+      this.context = context;
+      this.record = record;
+      this.startedSpan = startedSpan;
+      this.len = len;
+      this.promise = promise;
+    }
+  }
+
+  /**
+   * The completion of a send, without promise for fire and forget writes.
+   */
+  private static class Completion {
+
+    private final ContextInternal context;
+    private final Promise<RecordMetadata> promise;
+    private final long len;
+    private final RecordMetadata metadata;
+    private final Throwable failure;
+
+    Completion(ContextInternal context, Promise<RecordMetadata> promise, long len, RecordMetadata metadata, Throwable failure) {
+      this.context = context;
+      this.promise = promise;
+      this.len = len;
+      this.metadata = metadata;
+      this.failure = failure;
+    }
+  }
+
+  /**
+   * Collects the completions of the sends issued on a context from the Kafka IO thread and delivers them on
+   * the context in batches: a single task is scheduled for the completions accumulated until it runs and the
+   * write queue is updated once per batch. It is removed once the completions of all the sends it expects are
+   * delivered.
+   */
+  private class Completions implements Handler<Void> {
+
+    private final ContextInternal context;
+    private final Queue<Completion> queue = new ConcurrentLinkedQueue<>();
+    // pending size of the successful fire and forget writes
+    private final AtomicLong released = new AtomicLong();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    // sends whose completion is not added yet
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    Completions(ContextInternal context) {
+      this.context = context;
+    }
+
+    void add(Completion completion) {
+      queue.add(completion);
+      outstanding.decrementAndGet();
+      schedule();
+    }
+
+    void release(long len) {
+      released.addAndGet(len);
+      outstanding.decrementAndGet();
+      schedule();
+    }
+
+    // the send failed before being handed to the producer
+    void cancel() {
+      outstanding.decrementAndGet();
+      schedule();
+    }
+
+    private void schedule() {
+      if (scheduled.compareAndSet(false, true)) {
+        context.runOnContext(this);
+      }
+    }
+
+    @Override
+    public void handle(Void v) {
+      scheduled.set(false);
+      List<Completion> batch = new ArrayList<>();
+      long len = released.getAndSet(0);
+      Completion completion;
+      while ((completion = queue.poll()) != null) {
+        batch.add(completion);
+        len += completion.len;
+      }
+      if (outstanding.get() == 0 && queue.isEmpty()) {
+        // a send issued meanwhile uses a new instance if it does not see this one anymore
+        completions.remove(context, this);
+      }
+      if (len == 0 && batch.isEmpty()) {
+        return;
+      }
+      Handler<Throwable> exceptionHandler;
+      synchronized (KafkaWriteStreamImpl.this) {
+        exceptionHandler = KafkaWriteStreamImpl.this.exceptionHandler;
+      }
+      Handler<Void> drainHandler = release(len);
+      for (Completion c : batch) {
+        // complete on the context of the send, which can be a duplicate of this context
+        c.context.emit(c, c2 -> {
+          // if exception happens, no record written
+          if (c2.failure != null) {
+            if (exceptionHandler != null) {
+              exceptionHandler.handle(c2.failure);
+            }
+            if (c2.promise != null) {
+              c2.promise.fail(c2.failure);
+            }
+          } else {
+            c2.promise.complete(c2.metadata);
+          }
+        });
+      }
+      if (drainHandler != null) {
+        if (batch.isEmpty()) {
+          context.emit(null, drainHandler);
+        } else {
+          batch.get(batch.size() - 1).context.emit(null, drainHandler);
+        }
+      }
+    }
+  }
+
   @FunctionalInterface
   private interface BlockingStatement {
 
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.producer.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.kafka.client.producer.KafkaProducer;
+import io.vertx.kafka.client.producer.KafkaWriteStream;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A write stream spreading the records over a pool of producers.
+ * <p>
+ * Records with a partition are routed by partition and records with a key by key, so the records of a partition or
+ * a key are always written by the same producer and keep their order. Other records are spread in round-robin.
+ */
+public class KafkaWriteStreamPool<K, V> implements KafkaWriteStream<K, V> {
+
+  private final List<KafkaProducer<K, V>> producers;
+  private final List<KafkaWriteStream<K, V>> streams;
+  private final AtomicInteger next = new AtomicInteger();
+  private Handler<Void> drainHandler;
+
+  public KafkaWriteStreamPool(List<KafkaProducer<K, V>> producers) {
+    if (producers.isEmpty()) {
+      throw new IllegalArgumentException("A pool needs at least one producer");
+    }
+    this.producers = new ArrayList<>(producers);
+    this.streams = new ArrayList<>(producers.size());
+    for (KafkaProducer<K, V> producer : producers) {
+      streams.add(producer.asStream());
+    }
+  }
+
+  private KafkaWriteStream<K, V> route(ProducerRecord<K, V> record) {
+    return streams.get(index(record));
+  }
+
+  private int index(ProducerRecord<K, V> record) {
+    int hash;
+    if (record.partition() != null) {
+      hash = Objects.hash(record.topic(), record.partition());
+    } else if (record.key() != null) {
+      Object key = record.key();
+      hash = key instanceof byte[] ? Arrays.hashCode((byte[]) key) : key.hashCode();
+    } else {
+      hash = next.getAndIncrement();
+    }
+    return Utils.toPositive(hash) % streams.size();
+  }
+
+  @Override
+  public Future<Void> write(ProducerRecord<K, V> record) {
+    return route(record).write(record);
+  }
+
+  @Override
+  public Future<RecordMetadata> send(ProducerRecord<K, V> record) {
+    return route(record).send(record);
+  }
+
+  @Override
+  public Future<List<RecordMetadata>> sendBatch(List<ProducerRecord<K, V>> records) {
+    int size = streams.size();
+    List<List<ProducerRecord<K, V>>> batches = new ArrayList<>(size);
+    List<List<Integer>> positions = new ArrayList<>(size);
+    for (int i = 0;i < size;i++) {
+      batches.add(new ArrayList<>());
+      positions.add(new ArrayList<>());
+    }
+    for (int i = 0;i < records.size();i++) {
+      int index = index(records.get(i));
+      batches.get(index).add(records.get(i));
+      positions.get(index).add(i);
+    }
+    List<Future<List<RecordMetadata>>> futures = new ArrayList<>(size);
+    for (int i = 0;i < size;i++) {
+      futures.add(batches.get(i).isEmpty() ? null : streams.get(i).sendBatch(batches.get(i)));
+    }
+    return Future.all(nonNull(futures)).map(v -> {
+      RecordMetadata[] results = new RecordMetadata[records.size()];
+      for (int i = 0;i < size;i++) {
+        if (futures.get(i) != null) {
+          List<RecordMetadata> metadata = futures.get(i).result();
+          List<Integer> pos = positions.get(i);
+          for (int j = 0;j < pos.size();j++) {
+            results[pos.get(j)] = metadata.get(j);
+          }
+        }
+      }
+      return Arrays.asList(results);
+    });
+  }
+
+  private static <T> List<Future<T>> nonNull(List<Future<T>> futures) {
+    List<Future<T>> list = new ArrayList<>(futures.size());
+    for (Future<T> future : futures) {
+      if (future != null) {
+        list.add(future);
+      }
+    }
+    return list;
+  }
+
+  @Override
+  public Future<Void> ready() {
+    return all(KafkaWriteStream::ready);
+  }
+
+  @Override
+  public long acknowledgedRecords() {
+    long count = 0;
+    for (KafkaWriteStream<K, V> stream : streams) {
+      count += stream.acknowledgedRecords();
+    }
+    return count;
+  }
+
+  @Override
+  public long failedRecords() {
+    long count = 0;
+    for (KafkaWriteStream<K, V> stream : streams) {
+      count += stream.failedRecords();
+    }
+    return count;
+  }
+
+  @Override
+  public long coalescedRecords() {
+    long count = 0;
+    for (KafkaWriteStream<K, V> stream : streams) {
+      count += stream.coalescedRecords();
+    }
+    return count;
+  }
+
+  /**
+   * Set the maximum size of the write queue, split evenly between the producers of the pool.
+   */
+  @Override
+  public KafkaWriteStreamPool<K, V> setWriteQueueMaxSize(int size) {
+    int share = Math.max(1, size / streams.size());
+    for (KafkaWriteStream<K, V> stream : streams) {
+      stream.setWriteQueueMaxSize(share);
+    }
+    return this;
+  }
+
+  @Override
+  public KafkaWriteStreamPool<K, V> setRateLimit(long maxRecordsPerSecond, long maxBytesPerSecond) {
+    long recordsShare = maxRecordsPerSecond == 0L ? 0L : Math.max(1L, maxRecordsPerSecond / streams.size());
+    long bytesShare = maxBytesPerSecond == 0L ? 0L : Math.max(1L, maxBytesPerSecond / streams.size());
+    for (KafkaWriteStream<K, V> stream : streams) {
+      stream.setRateLimit(recordsShare, bytesShare);
+    }
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    for (KafkaWriteStream<K, V> stream : streams) {
+      if (stream.writeQueueFull()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public synchronized KafkaWriteStreamPool<K, V> drainHandler(Handler<Void> handler) {
+    this.drainHandler = handler;
+    for (KafkaWriteStream<K, V> stream : streams) {
+      stream.drainHandler(handler != null ? v -> checkDrained() : null);
+    }
+    return this;
+  }
+
+  private void checkDrained() {
+    Handler<Void> handler;
+    synchronized (this) {
+      if (drainHandler == null) {
+        return;
+      }
+      if (writeQueueFull()) {
+        // the drain handler of a producer is only called once
+        for (KafkaWriteStream<K, V> stream : streams) {
+          if (stream.writeQueueFull()) {
+            stream.drainHandler(v -> checkDrained());
+          }
+        }
+        return;
+      }
+      handler = drainHandler;
+      drainHandler = null;
+      for (KafkaWriteStream<K, V> stream : streams) {
+        stream.drainHandler(null);
+      }
+    }
+    handler.handle(null);
+  }
+
+  @Override
+  public KafkaWriteStreamPool<K, V> exceptionHandler(Handler<Throwable> handler) {
+    for (KafkaWriteStream<K, V> stream : streams) {
+      stream.exceptionHandler(handler);
+    }
+    return this;
+  }
+
+  @Override
+  public Future<Void> end() {
+    return all(KafkaWriteStream::end);
+  }
+
+  @Override
+  public Future<Void> initTransactions() {
+    return transactionsNotSupported();
+  }
+
+  @Override
+  public Future<Void> beginTransaction() {
+    return transactionsNotSupported();
+  }
+
+  @Override
+  public Future<Void> commitTransaction() {
+    return transactionsNotSupported();
+  }
+
+  @Override
+  public Future<Void> abortTransaction() {
+    return transactionsNotSupported();
+  }
+
+  @Override
+  public Future<Void> sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, ConsumerGroupMetadata groupMetadata) {
+    return transactionsNotSupported();
+  }
+
+  private Future<Void> transactionsNotSupported() {
+    return Future.failedFuture(new IllegalStateException("Transactions cannot span the producers of a pool"));
+  }
+
+  @Override
+  public Future<List<PartitionInfo>> partitionsFor(String topic) {
+    return streams.get(0).partitionsFor(topic);
+  }
+
+  @Override
+  public Future<Void> flush() {
+    return all(KafkaWriteStream::flush);
+  }
+
+  @Override
+  public Future<Void> close() {
+    List<Future<Void>> futures = new ArrayList<>(producers.size());
+    for (KafkaProducer<K, V> producer : producers) {
+      futures.add(producer.close());
+    }
+    return Future.all(futures).mapEmpty();
+  }
+
+  @Override
+  public Future<Void> close(long timeout) {
+    List<Future<Void>> futures = new ArrayList<>(producers.size());
+    for (KafkaProducer<K, V> producer : producers) {
+      futures.add(producer.close(timeout));
+    }
+    return Future.all(futures).mapEmpty();
+  }
+
+  /**
+   * @return the first producer of the pool
+   */
+  @Override
+  public Producer<K, V> unwrap() {
+    return streams.get(0).unwrap();
+  }
+
+  private Future<Void> all(Function<KafkaWriteStream<K, V>, Future<Void>> action) {
+    List<Future<Void>> futures = new ArrayList<>(streams.size());
+    for (KafkaWriteStream<K, V> stream : streams) {
+      futures.add(action.apply(stream));
+    }
+    return Future.all(futures).mapEmpty();
+  }
+}
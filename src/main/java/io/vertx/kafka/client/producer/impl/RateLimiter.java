@@ -0,0 +1,251 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.producer.impl;
+
+import io.vertx.core.impl.VertxInternal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token buckets limiting the records and the bytes written per second, with a burst capacity of the tokens refilled
+ * during the burst time. A write takes its tokens when no bucket is in debt, it can put a bucket in debt. Otherwise
+ * the write is held, in order with the other held writes, until the buckets are refilled.
+ */
+class RateLimiter {
+
+  private final VertxInternal vertx;
+  private final long burstTime;
+  // limits are set or writes are held
+  private volatile boolean enabled;
+  private Bucket records;
+  private Bucket bytes;
+  private final ArrayDeque<Write> held = new ArrayDeque<>();
+  // a thread is running the writes taken from the held writes
+  private boolean running;
+  // the held writes run without waiting for tokens
+  private boolean draining;
+  private long timer = -1L;
+
+  /**
+   * @param burstTime the burst time in milliseconds
+   */
+  RateLimiter(VertxInternal vertx, long burstTime) {
+    this.vertx = vertx;
+    this.burstTime = burstTime;
+  }
+
+  /**
+   * Change the limits, {@code 0} for no limit. A bucket keeps its tokens, up to the capacity of the new limit.
+   */
+  void limit(long recordsPerSecond, long bytesPerSecond) {
+    if (recordsPerSecond < 0 || bytesPerSecond < 0) {
+      throw new IllegalArgumentException("The rate limits must be >= 0");
+    }
+    synchronized (this) {
+      long now = System.nanoTime();
+      records = recordsPerSecond > 0 ? new Bucket(recordsPerSecond, burstTime, now, records) : null;
+      bytes = bytesPerSecond > 0 ? new Bucket(bytesPerSecond, burstTime, now, bytes) : null;
+      enabled = records != null || bytes != null || !held.isEmpty();
+      if (held.isEmpty() || running) {
+        return;
+      }
+      running = true;
+    }
+    // the held writes can go on with the new limits
+    run();
+  }
+
+  /**
+   * Run the held writes now, they take their tokens and can put the buckets in debt.
+   */
+  void drain() {
+    synchronized (this) {
+      if (held.isEmpty()) {
+        return;
+      }
+      draining = true;
+      if (timer != -1L) {
+        vertx.cancelTimer(timer);
+        timer = -1L;
+      }
+      if (running) {
+        // the running thread runs them
+        return;
+      }
+      running = true;
+    }
+    run();
+  }
+
+  /**
+   * @return whether writes may be held
+   */
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Run a write once no bucket is in debt, taking its tokens.
+   *
+   * @param count the number of records written
+   * @param len the size of the records written
+   * @param write the write
+   */
+  void submit(long count, long len, Runnable write) {
+    if (enabled) {
+      synchronized (this) {
+        long now = System.nanoTime();
+        if (running || !held.isEmpty() || delay(now) > 0L) {
+          held.add(new Write(count, len, write));
+          schedule(now);
+          return;
+        }
+        take(count, len, now);
+      }
+    }
+    write.run();
+  }
+
+  /**
+   * @return the time in milliseconds until no bucket is in debt anymore, {@code 0} when writes can go on
+   */
+  long delay() {
+    if (!enabled) {
+      return 0L;
+    }
+    synchronized (this) {
+      long delay = delay(System.nanoTime());
+      return delay == 0L ? 0L : Math.max(1L, delay / 1_000_000L);
+    }
+  }
+
+  private long delay(long now) {
+    long delay = 0L;
+    if (records != null) {
+      delay = records.delay(now);
+    }
+    if (bytes != null) {
+      delay = Math.max(delay, bytes.delay(now));
+    }
+    return delay;
+  }
+
+  private void take(long count, long len, long now) {
+    if (records != null) {
+      records.take(count, now);
+    }
+    if (bytes != null) {
+      bytes.take(len, now);
+    }
+  }
+
+  private void schedule(long now) {
+    if (timer == -1L && !running) {
+      timer = vertx.setTimer(Math.max(1L, delay(now) / 1_000_000L), id -> {
+        synchronized (this) {
+          timer = -1L;
+          if (running) {
+            return;
+          }
+          running = true;
+        }
+        run();
+      });
+    }
+  }
+
+  // Run the held writes the buckets have tokens for, outside of the lock, until none can go on
+  private void run() {
+    while (true) {
+      List<Runnable> writes = new ArrayList<>();
+      synchronized (this) {
+        long now = System.nanoTime();
+        while (!held.isEmpty() && (draining || delay(now) == 0L)) {
+          Write write = held.poll();
+          take(write.count, write.len, now);
+          writes.add(write.write);
+        }
+        if (writes.isEmpty()) {
+          running = false;
+          draining = false;
+          if (held.isEmpty()) {
+            enabled = records != null || bytes != null;
+          } else {
+            schedule(now);
+          }
+          return;
+        }
+      }
+      for (Runnable write : writes) {
+        write.run();
+      }
+    }
+  }
+
+  private static class Write {
+
+    private final long count;
+    private final long len;
+    private final Runnable write;
+
+    Write(long count, long len, Runnable write) {
+      this.count = count;
+      this.len = len;
+      this.write = write;
+    }
+  }
+
+  private static class Bucket {
+
+    private final double perNano;
+    private final double capacity;
+    private double tokens;
+    private long last;
+
+    /**
+     * @param previous the bucket of the previous limit, whose tokens are kept, or {@code null} to start full
+     */
+    Bucket(long perSecond, long burstTime, long now, Bucket previous) {
+      this.perNano = perSecond / 1_000_000_000d;
+      this.capacity = Math.max(1d, perSecond * burstTime / 1000d);
+      if (previous != null) {
+        previous.refill(now);
+        this.tokens = Math.min(capacity, previous.tokens);
+      } else {
+        this.tokens = capacity;
+      }
+      this.last = now;
+    }
+
+    private void refill(long now) {
+      tokens = Math.min(capacity, tokens + (now - last) * perNano);
+      last = now;
+    }
+
+    void take(long count, long now) {
+      refill(now);
+      tokens -= count;
+    }
+
+    long delay(long now) {
+      refill(now);
+      return tokens >= 0d ? 0L : (long) Math.ceil(-tokens / perNano);
+    }
+  }
+}
@@ -16,7 +16,6 @@
 
 package io.vertx.kafka.client.serialization;
 
-import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import org.apache.kafka.common.serialization.Deserializer;
 
@@ -36,7 +35,7 @@ public class JsonArrayDeserializer implements Deserializer<JsonArray> {
     if (data == null)
       return null;
 
-    return Buffer.buffer(data).toJsonArray();
+    return JsonCodec.decode(data, JsonArray.class);
   }
 
   @Override
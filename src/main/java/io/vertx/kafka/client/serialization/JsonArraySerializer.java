@@ -35,7 +35,7 @@ public class JsonArraySerializer implements Serializer<JsonArray> {
     if (data == null)
       return null;
 
-    return data.encode().getBytes();
+    return JsonCodec.encode(data);
   }
 
   @Override
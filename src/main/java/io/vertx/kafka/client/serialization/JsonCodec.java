@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.serialization;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.EncodeException;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.jackson.JacksonCodec;
+
+import java.io.IOException;
+
+/**
+ * Encodes JSON values directly to UTF-8 bytes and decodes them directly from bytes, without intermediate
+ * {@code String} or {@code Buffer}.
+ */
+final class JsonCodec {
+
+  // same parsing leniency as the Vert.x codec
+  private static final JsonFactory FACTORY = JsonFactory.builder().enable(JsonReadFeature.ALLOW_JAVA_COMMENTS).build();
+
+  private JsonCodec() {
+  }
+
+  static byte[] encode(Object json) {
+    ByteArrayBuilder out = new ByteArrayBuilder();
+    try (JsonGenerator generator = FACTORY.createGenerator(out)) {
+      JacksonCodec.encodeJson(json, generator);
+    } catch (EncodeException e) {
+      // values that only the configured codec knows how to encode, e.g. POJOs with databind
+      return Json.CODEC.toBuffer(json, false).getBytes();
+    } catch (IOException e) {
+      throw new EncodeException(e.getMessage(), e);
+    }
+    byte[] bytes = out.toByteArray();
+    out.release();
+    return bytes;
+  }
+
+  static <T> T decode(byte[] data, Class<T> type) {
+    JsonParser parser;
+    try {
+      parser = FACTORY.createParser(data);
+    } catch (IOException e) {
+      throw new DecodeException("Failed to decode:" + e.getMessage(), e);
+    }
+    return JacksonCodec.fromParser(parser, type);
+  }
+}
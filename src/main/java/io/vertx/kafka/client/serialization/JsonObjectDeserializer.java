@@ -16,7 +16,6 @@
 
 package io.vertx.kafka.client.serialization;
 
-import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
 import org.apache.kafka.common.serialization.Deserializer;
 
@@ -36,7 +35,7 @@ public class JsonObjectDeserializer implements Deserializer<JsonObject> {
     if (data == null)
       return null;
 
-    return Buffer.buffer(data).toJsonObject();
+    return JsonCodec.decode(data, JsonObject.class);
   }
 
   @Override
@@ -35,7 +35,7 @@ public class JsonObjectSerializer implements Serializer<JsonObject> {
     if (data == null)
       return null;
 
-    return data.encode().getBytes();
+    return JsonCodec.encode(data);
   }
 
   @Override
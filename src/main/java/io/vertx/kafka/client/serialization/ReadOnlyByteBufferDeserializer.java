@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.serialization;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Kafka deserializer for raw bytes in a read-only {@link ByteBuffer}, the record bytes are wrapped instead of
+ * being copied.
+ */
+public class ReadOnlyByteBufferDeserializer implements Deserializer<ByteBuffer> {
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+  }
+
+  @Override
+  public ByteBuffer deserialize(String topic, byte[] data) {
+    if (data == null)
+      return null;
+
+    return ByteBuffer.wrap(data).asReadOnlyBuffer();
+  }
+
+  @Override
+  public ByteBuffer deserialize(String topic, Headers headers, byte[] data) {
+    return deserialize(topic, data);
+  }
+
+  @Override
+  public void close() {
+  }
+}
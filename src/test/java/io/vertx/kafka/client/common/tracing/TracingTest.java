@@ -34,7 +34,9 @@ import io.vertx.kafka.client.producer.impl.KafkaProducerImpl;
 import io.vertx.kafka.client.tests.KafkaClusterTestBase;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.junit.After;
@@ -145,6 +147,21 @@ public class TracingTest extends KafkaClusterTestBase {
     tracer.assertAllDone(1);
   }
 
+  @Test
+  public void testTracingCoalesced(TestContext ctx) {
+    MockProducer<String, String> mock = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+    producer = KafkaWriteStream.create(vertx, mock, new KafkaClientOptions()
+      .setTracePeerAddress("localhost:9092,localhost:9093")
+      .setCoalesceWindow(60_000));
+
+    tracer.init("topic", 2, 0);
+    producer.send(new ProducerRecord<>("topic", "key", "value-0"));
+    producer.send(new ProducerRecord<>("topic", "key", "value-1"));
+    producer.flush();
+    // the span of the replaced record fails like its send
+    tracer.assertAllDone(1);
+  }
+
   @Test
   public void testTracingIgnoreConsumer(TestContext ctx) {
     String topicName = "TestTracingIgnoreC";
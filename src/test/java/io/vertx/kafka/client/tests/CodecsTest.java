@@ -24,6 +24,8 @@ import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.kafka.client.serialization.BufferDeserializer;
 import io.vertx.kafka.client.serialization.BufferSerializer;
+import io.vertx.kafka.client.serialization.ReadOnlyBufferDeserializer;
+import io.vertx.kafka.client.serialization.ReadOnlyByteBufferDeserializer;
 import io.vertx.kafka.client.consumer.KafkaReadStream;
 import io.vertx.kafka.client.producer.KafkaWriteStream;
 import io.vertx.kafka.client.serialization.VertxSerdes;
@@ -37,6 +39,9 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentLinkedDeque;
@@ -44,6 +49,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Codec tests
@@ -86,6 +94,30 @@ public class CodecsTest extends KafkaClusterTestBase {
     testSerializer(JsonArray.class, new JsonArray().add(3).add("s").add(true));
   }
 
+  @Test
+  public void testReadOnlyBufferDeserializer() {
+    byte[] data = "Hello".getBytes(StandardCharsets.UTF_8);
+    Buffer buffer = new ReadOnlyBufferDeserializer().deserialize(topic, data);
+    assertEquals(Buffer.buffer("Hello"), buffer);
+    data[0] = 'J';
+    assertEquals("Should not copy the record bytes", "Jello", buffer.toString());
+    try {
+      buffer.setByte(0, (byte) 'H');
+      fail("Should not be writable");
+    } catch (ReadOnlyBufferException expected) {
+    }
+    assertNull(new ReadOnlyBufferDeserializer().deserialize(topic, null));
+  }
+
+  @Test
+  public void testReadOnlyByteBufferDeserializer() {
+    byte[] data = "Hello".getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = new ReadOnlyByteBufferDeserializer().deserialize(topic, data);
+    assertTrue(buffer.isReadOnly());
+    assertEquals(ByteBuffer.wrap("Hello".getBytes(StandardCharsets.UTF_8)), buffer);
+    assertNull(new ReadOnlyByteBufferDeserializer().deserialize(topic, null));
+  }
+
   private <T> void testSerializer(Class<T> type, T val) {
     final Serde<T> serde = VertxSerdes.serdeFrom(type);
     final Deserializer<T> deserializer = serde.deserializer();
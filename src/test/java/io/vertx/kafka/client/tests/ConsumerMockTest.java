@@ -16,9 +16,31 @@
 
 package io.vertx.kafka.client.tests;
 
+import io.vertx.core.Context;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.kafka.client.common.KafkaClientOptions;
+import io.vertx.kafka.client.consumer.DispatchMode;
+import io.vertx.kafka.client.consumer.IdleStrategy;
+import io.vertx.kafka.client.consumer.KafkaConsumer;
 import io.vertx.kafka.client.consumer.KafkaReadStream;
+import io.vertx.kafka.client.consumer.impl.KafkaConsumerImpl;
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Tests using mock consumer
@@ -29,4 +51,218 @@ public class ConsumerMockTest extends ConsumerMockTestBase {
   <K, V> KafkaReadStream<K, V> createConsumer(Vertx vertx, Consumer<K, V> consumer) {
     return KafkaReadStream.create(vertx, consumer);
   }
+
+  @Test
+  public void testBatchDispatchMode(TestContext ctx) {
+    Vertx vertx = Vertx.vertx();
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaClientOptions options = new KafkaClientOptions().setDispatchMode(DispatchMode.BATCH);
+    KafkaReadStream<String, String> consumer = KafkaReadStream.create(vertx, mock, options);
+    int messageCount = 3;
+    Async doneLatch = ctx.async();
+    List<Context> contexts = new ArrayList<>();
+    consumer.handler(record -> {
+      contexts.add(Vertx.currentContext());
+      if (contexts.size() == messageCount) {
+        ctx.assertTrue(contexts.get(0) == contexts.get(1));
+        ctx.assertTrue(contexts.get(1) == contexts.get(2));
+        consumer.close()
+          .compose(v -> vertx.close())
+          .onComplete(ctx.asyncAssertSuccess(v -> doneLatch.complete()));
+      }
+    });
+    consumer.subscribe(Collections.singleton("the_topic")).onComplete(v -> {
+      mock.schedulePollTask(() -> {
+        mock.rebalance(Collections.singletonList(new TopicPartition("the_topic", 0)));
+        mock.seek(new TopicPartition("the_topic", 0), 0L);
+        for (int i = 0; i < messageCount; i++) {
+          mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+        }
+      });
+    });
+  }
+
+  @Test
+  public void testIdleBackoff(TestContext ctx) {
+    Vertx vertx = Vertx.vertx();
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaClientOptions options = new KafkaClientOptions().setIdleStrategy(IdleStrategy.BACKOFF).setIdleMaxBackoff(20);
+    KafkaReadStream<String, String> consumer = KafkaReadStream.create(vertx, mock, options);
+    Async doneLatch = ctx.async();
+    consumer.handler(record -> ctx.fail());
+    consumer.subscribe(Collections.singleton("the_topic")).onComplete(ctx.asyncAssertSuccess(v -> {
+      vertx.setTimer(200, id -> {
+        long emptyPolls = consumer.emptyPolls();
+        ctx.assertTrue(emptyPolls > 0);
+        // the backoff keeps the number of polls far below one per millisecond
+        ctx.assertTrue(emptyPolls < 100, "Unexpected empty polls " + emptyPolls);
+        ctx.assertTrue(consumer.idleTime() > 0);
+        consumer.close()
+          .compose(v2 -> vertx.close())
+          .onComplete(ctx.asyncAssertSuccess(v2 -> doneLatch.complete()));
+      });
+    }));
+  }
+
+  @Test
+  public void testAsyncCommitsAreCoalesced(TestContext ctx) {
+    Vertx vertx = Vertx.vertx();
+    TopicPartition tp = new TopicPartition("the_topic", 0);
+    AtomicInteger commits = new AtomicInteger();
+    MockConsumer<String, String> mock = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+      @Override
+      public synchronized void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets, OffsetCommitCallback callback) {
+        commits.incrementAndGet();
+        super.commitAsync(offsets, callback);
+      }
+    };
+    KafkaClientOptions options = new KafkaClientOptions().setAsyncCommit(true).setAsyncCommitInterval(50);
+    KafkaReadStream<String, String> consumer = KafkaReadStream.create(vertx, mock, options);
+    Async doneLatch = ctx.async();
+    consumer.assign(Collections.singleton(tp)).onComplete(ctx.asyncAssertSuccess(v -> {
+      List<Future<Map<TopicPartition, OffsetAndMetadata>>> futures = new ArrayList<>();
+      for (long offset : new long[] { 5L, 3L, 7L }) {
+        futures.add(consumer.commit(Collections.singletonMap(tp, new OffsetAndMetadata(offset))));
+      }
+      Future.all(futures).onComplete(ctx.asyncAssertSuccess(cf -> {
+        for (Future<Map<TopicPartition, OffsetAndMetadata>> future : futures) {
+          ctx.assertEquals(7L, future.result().get(tp).offset());
+        }
+        ctx.assertEquals(1, commits.get());
+        ctx.assertEquals(7L, mock.committed(Collections.singleton(tp)).get(tp).offset());
+        consumer.close()
+          .compose(v2 -> vertx.close())
+          .onComplete(ctx.asyncAssertSuccess(v2 -> doneLatch.complete()));
+      }));
+    }));
+  }
+
+  @Test
+  public void testAcknowledgementWatermark(TestContext ctx) {
+    Vertx vertx = Vertx.vertx();
+    TopicPartition tp = new TopicPartition("the_topic", 0);
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaClientOptions options = new KafkaClientOptions().setTrackAcknowledgements(true);
+    KafkaReadStream<String, String> consumer = KafkaReadStream.create(vertx, mock, options);
+    Async doneLatch = ctx.async();
+    List<ConsumerRecord<String, String>> received = new ArrayList<>();
+    consumer.handler(record -> {
+      received.add(record);
+      if (received.size() == 5) {
+        consumer.ack(received.get(0));
+        consumer.ack(received.get(2));
+        consumer.ack(received.get(3));
+        consumer.commit().compose(offsets -> {
+          ctx.assertEquals(1L, offsets.get(tp).offset());
+          consumer.ack(received.get(1));
+          return consumer.commit();
+        }).compose(offsets -> {
+          ctx.assertEquals(4L, offsets.get(tp).offset());
+          consumer.ack(received.get(4));
+          return consumer.commit();
+        }).onComplete(ctx.asyncAssertSuccess(offsets -> {
+          ctx.assertEquals(5L, offsets.get(tp).offset());
+          ctx.assertEquals(5L, mock.committed(Collections.singleton(tp)).get(tp).offset());
+          consumer.close()
+            .compose(v -> vertx.close())
+            .onComplete(ctx.asyncAssertSuccess(v -> doneLatch.complete()));
+        }));
+      }
+    });
+    consumer.subscribe(Collections.singleton("the_topic")).onComplete(v -> {
+      mock.schedulePollTask(() -> {
+        mock.rebalance(Collections.singletonList(tp));
+        mock.seek(tp, 0L);
+        for (int i = 0; i < 5; i++) {
+          mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+        }
+      });
+    });
+  }
+
+  @Test
+  public void testNackKeepsUnacknowledgedRecords(TestContext ctx) {
+    Vertx vertx = Vertx.vertx();
+    TopicPartition tp = new TopicPartition("the_topic", 0);
+    MockConsumer<String, String> mock = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+      @Override
+      public synchronized void seek(TopicPartition partition, long offset) {
+        super.seek(partition, offset);
+        if (offset == 1L) {
+          // Redeliver the records following the rejected one
+          addRecord(new ConsumerRecord<>("the_topic", 0, 1L, "key-1", "value-1"));
+          addRecord(new ConsumerRecord<>("the_topic", 0, 2L, "key-2", "value-2"));
+        }
+      }
+    };
+    KafkaClientOptions options = new KafkaClientOptions().setTrackAcknowledgements(true);
+    KafkaReadStream<String, String> consumer = KafkaReadStream.create(vertx, mock, options);
+    Async doneLatch = ctx.async();
+    List<ConsumerRecord<String, String>> received = new ArrayList<>();
+    consumer.handler(record -> {
+      received.add(record);
+      if (received.size() == 3) {
+        consumer.ack(received.get(2));
+        consumer.nack(received.get(1));
+      } else if (received.size() == 5) {
+        ctx.assertEquals(1L, received.get(3).offset());
+        ctx.assertEquals(2L, received.get(4).offset());
+        consumer.ack(received.get(3));
+        consumer.ack(received.get(4));
+        consumer.commit().compose(offsets -> {
+          // record 0 is still not acknowledged
+          ctx.assertEquals(0L, offsets.get(tp).offset());
+          consumer.ack(received.get(0));
+          return consumer.commit();
+        }).onComplete(ctx.asyncAssertSuccess(offsets -> {
+          ctx.assertEquals(3L, offsets.get(tp).offset());
+          consumer.close()
+            .compose(v -> vertx.close())
+            .onComplete(ctx.asyncAssertSuccess(v -> doneLatch.complete()));
+        }));
+      }
+    });
+    consumer.subscribe(Collections.singleton("the_topic")).onComplete(v -> {
+      mock.schedulePollTask(() -> {
+        mock.rebalance(Collections.singletonList(tp));
+        mock.seek(tp, 0L);
+        for (int i = 0; i < 3; i++) {
+          mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+        }
+      });
+    });
+  }
+
+  @Test
+  public void testAcknowledgeBatchRecords(TestContext ctx) {
+    Vertx vertx = Vertx.vertx();
+    TopicPartition tp = new TopicPartition("the_topic", 0);
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaClientOptions options = new KafkaClientOptions().setTrackAcknowledgements(true);
+    KafkaReadStream<String, String> stream = KafkaReadStream.create(vertx, mock, options);
+    KafkaConsumer<String, String> consumer = new KafkaConsumerImpl<>(stream);
+    Async doneLatch = ctx.async();
+    consumer.handler(record -> {});
+    consumer.batchHandler(records -> {
+      ctx.assertEquals(3, records.size());
+      // the records of the batch are acknowledged to the stream that polled them
+      records.recordAt(0).ack();
+      records.recordAt(1).ack();
+      stream.commit().onComplete(ctx.asyncAssertSuccess(offsets -> {
+        ctx.assertEquals(2L, offsets.get(tp).offset());
+        consumer.close()
+          .compose(v -> vertx.close())
+          .onComplete(ctx.asyncAssertSuccess(v -> doneLatch.complete()));
+      }));
+    });
+    consumer.subscribe(Collections.singleton("the_topic")).onComplete(v -> {
+      mock.schedulePollTask(() -> {
+        mock.rebalance(Collections.singletonList(tp));
+        mock.seek(tp, 0L);
+        for (int i = 0; i < 3; i++) {
+          mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+        }
+      });
+    });
+  }
 }
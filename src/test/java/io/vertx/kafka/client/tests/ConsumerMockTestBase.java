@@ -137,6 +137,37 @@ public abstract class ConsumerMockTestBase {
     });
   }
 
+  @Test
+  public void testFetch(TestContext ctx) {
+    int num = 50;
+    int fetched = 15;
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaReadStream<String, String> consumer = createConsumer(vertx, mock);
+    Async receivedLatch = ctx.async(fetched);
+    Async doneLatch = ctx.async();
+    AtomicInteger count = new AtomicInteger();
+    consumer.pause();
+    consumer.handler(record -> {
+      ctx.assertEquals("key-" + count.getAndIncrement(), record.key());
+      receivedLatch.countDown();
+    });
+    consumer.subscribe(Collections.singleton("the_topic")).onComplete(v -> {
+      mock.schedulePollTask(() -> {
+        mock.rebalance(Collections.singletonList(new TopicPartition("the_topic", 0)));
+        mock.seek(new TopicPartition("the_topic", 0), 0);
+        for (int i = 0; i < num; i++) {
+          mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+        }
+      });
+      consumer.fetch(fetched);
+    });
+    receivedLatch.handler(r -> vertx.setTimer(100, id -> {
+      ctx.assertEquals(fetched, count.get());
+      ctx.assertEquals(0L, consumer.demand());
+      consumer.close().onComplete(v -> doneLatch.complete());
+    }));
+  }
+
   @Test
   public void testConsumedMessagesHandledOnUniqueContexts(TestContext ctx) {
     MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.tests;
+
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
+import io.vertx.kafka.client.consumer.KafkaConsumerRecords;
+import io.vertx.kafka.client.consumer.impl.KafkaConsumerRecordsImpl;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class KafkaConsumerRecordsTest {
+
+  private static KafkaConsumerRecords<String, String> batch() {
+    Map<org.apache.kafka.common.TopicPartition, List<ConsumerRecord<String, String>>> map = new LinkedHashMap<>();
+    for (int partition = 0; partition < 3; partition++) {
+      List<ConsumerRecord<String, String>> list = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        list.add(new ConsumerRecord<>("the_topic", partition, 10 + i, "key-" + partition, "value-" + i));
+      }
+      map.put(new org.apache.kafka.common.TopicPartition("the_topic", partition), list);
+    }
+    return new KafkaConsumerRecordsImpl<>(new ConsumerRecords<>(map));
+  }
+
+  @Test
+  public void testRecordAt() {
+    KafkaConsumerRecords<String, String> records = batch();
+    assertEquals(12, records.size());
+    for (int i = 0; i < 12; i++) {
+      KafkaConsumerRecord<String, String> record = records.recordAt(i);
+      assertEquals(i / 4, record.partition());
+      assertEquals(10 + i % 4, record.offset());
+      assertSame(record, records.recordAt(i));
+    }
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testRecordAtOutOfBounds() {
+    batch().recordAt(12);
+  }
+
+  @Test
+  public void testPartitionSlices() {
+    KafkaConsumerRecords<String, String> records = batch();
+    assertEquals(new HashSet<>(Arrays.asList(
+      new TopicPartition("the_topic", 0),
+      new TopicPartition("the_topic", 1),
+      new TopicPartition("the_topic", 2))), records.partitions());
+    TopicPartition partition = new TopicPartition("the_topic", 1);
+    List<KafkaConsumerRecord<String, String>> slice = records.records(partition);
+    assertEquals(4, slice.size());
+    for (int i = 0; i < 4; i++) {
+      assertEquals(1, slice.get(i).partition());
+      assertEquals(10 + i, slice.get(i).offset());
+    }
+    assertSame(slice.get(2), records.recordAt(6));
+    assertEquals(10, records.firstOffset(partition));
+    assertEquals(13, records.lastOffset(partition));
+  }
+
+  @Test
+  public void testMissingPartition() {
+    KafkaConsumerRecords<String, String> records = batch();
+    TopicPartition partition = new TopicPartition("another_topic", 0);
+    assertTrue(records.records(partition).isEmpty());
+    assertEquals(-1, records.firstOffset(partition));
+    assertEquals(-1, records.lastOffset(partition));
+  }
+}
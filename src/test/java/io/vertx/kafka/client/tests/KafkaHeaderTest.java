@@ -16,8 +16,11 @@
 
 package io.vertx.kafka.client.tests;
 
+import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
+import io.vertx.kafka.client.consumer.impl.KafkaConsumerRecordImpl;
 import io.vertx.kafka.client.producer.KafkaHeader;
 import io.vertx.kafka.client.producer.KafkaProducerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.Test;
 
 import java.util.Arrays;
@@ -25,7 +28,9 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 public class KafkaHeaderTest {
 
@@ -57,4 +62,44 @@ public class KafkaHeaderTest {
     assertEquals("value2", kafkaHeader2.value().toString());
   }
 
+  @Test
+  public void testConsumerRecordHeaders() {
+    ConsumerRecord<String, String> record = new ConsumerRecord<>("mytopic", 0, 0L, "mykey", "myvalue");
+    record.headers().add("key1", "value1".getBytes()).add("key2", "value2".getBytes()).add("key1", "value3".getBytes());
+    KafkaConsumerRecord<String, String> consumerRecord = new KafkaConsumerRecordImpl<>(record);
+
+    assertEquals("value3", consumerRecord.header("key1").value().toString());
+    assertEquals("value2", consumerRecord.header("key2").value().toString());
+    assertNull(consumerRecord.header("key3"));
+
+    List<KafkaHeader> headers = consumerRecord.headers();
+    assertEquals(3, headers.size());
+    assertEquals("key1", headers.get(0).key());
+    assertEquals("value1", headers.get(0).value().toString());
+    assertEquals("key2", headers.get(1).key());
+    assertEquals("value3", headers.get(2).value().toString());
+  }
+
+  @Test
+  public void testConsumerRecordHeaderEquality() {
+    ConsumerRecord<String, String> record = new ConsumerRecord<>("mytopic", 0, 0L, "mykey", "myvalue");
+    record.headers().add("key1", "value1".getBytes());
+    KafkaConsumerRecord<String, String> consumerRecord = new KafkaConsumerRecordImpl<>(record);
+
+    KafkaHeader view = consumerRecord.headers().get(0);
+    KafkaHeader header = KafkaHeader.header("key1", "value1");
+    assertEquals(header, view);
+    assertEquals(view, header);
+    assertEquals(header.hashCode(), view.hashCode());
+    assertNotEquals(KafkaHeader.header("key1", "value2"), view);
+    assertNotEquals(view, KafkaHeader.header("key2", "value1"));
+  }
+
+  @Test
+  public void testConsumerRecordWithoutHeaders() {
+    ConsumerRecord<String, String> record = new ConsumerRecord<>("mytopic", 0, 0L, "mykey", "myvalue");
+    KafkaConsumerRecord<String, String> consumerRecord = new KafkaConsumerRecordImpl<>(record);
+    assertEquals(Collections.emptyList(), consumerRecord.headers());
+    assertNull(consumerRecord.header("key1"));
+  }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.tests;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.kafka.client.common.KafkaClientOptions;
+import io.vertx.kafka.client.consumer.KafkaReadStream;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests using mock consumers delivering records per partition
+ */
+public class PartitionParallelConsumerMockTest extends ConsumerMockTestBase {
+
+  @Override
+  <K, V> KafkaReadStream<K, V> createConsumer(Vertx vertx, Consumer<K, V> consumer) {
+    KafkaClientOptions options = new KafkaClientOptions().setPartitionParallelism(2).setPartitionBufferSize(8);
+    return KafkaReadStream.<K, V>create(vertx, consumer, options).pollTimeout(Duration.ofMillis(10));
+  }
+
+  @Test
+  public void testPartitionOrderAndCommit(TestContext ctx) {
+    int num = 20;
+    Vertx vertx = Vertx.vertx();
+    TopicPartition tp0 = new TopicPartition("the_topic", 0);
+    TopicPartition tp1 = new TopicPartition("the_topic", 1);
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaReadStream<String, String> consumer = createConsumer(vertx, mock);
+    Async doneLatch = ctx.async();
+    Map<Integer, AtomicInteger> expected = new ConcurrentHashMap<>();
+    AtomicInteger received = new AtomicInteger();
+    consumer.handler(record -> {
+      AtomicInteger next = expected.computeIfAbsent(record.partition(), p -> new AtomicInteger());
+      ctx.assertEquals((long) next.getAndIncrement(), record.offset());
+      if (received.incrementAndGet() == 2 * num) {
+        vertx.runOnContext(v -> consumer.commit().onComplete(ctx.asyncAssertSuccess(offsets -> {
+          ctx.assertEquals(new OffsetAndMetadata(num), offsets.get(tp0));
+          ctx.assertEquals(new OffsetAndMetadata(num), offsets.get(tp1));
+          Map<TopicPartition, OffsetAndMetadata> committed = mock.committed(new HashSet<>(Arrays.asList(tp0, tp1)));
+          ctx.assertEquals(num, (int) committed.get(tp0).offset());
+          ctx.assertEquals(num, (int) committed.get(tp1).offset());
+          consumer.close()
+            .compose(v2 -> vertx.close())
+            .onComplete(ctx.asyncAssertSuccess(v2 -> doneLatch.complete()));
+        })));
+      }
+    });
+    consumer.subscribe(Collections.singleton("the_topic")).onComplete(v -> {
+      mock.schedulePollTask(() -> {
+        mock.rebalance(Arrays.asList(tp0, tp1));
+        mock.seek(tp0, 0L);
+        mock.seek(tp1, 0L);
+        for (int i = 0; i < num; i++) {
+          mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+          mock.addRecord(new ConsumerRecord<>("the_topic", 1, i, "key-" + i, "value-" + i));
+        }
+      });
+    });
+  }
+
+  @Test
+  public void testPartitionDemand(TestContext ctx) {
+    int num = 20;
+    Vertx vertx = Vertx.vertx();
+    TopicPartition tp0 = new TopicPartition("the_topic", 0);
+    TopicPartition tp1 = new TopicPartition("the_topic", 1);
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaReadStream<String, String> consumer = createConsumer(vertx, mock);
+    Async doneLatch = ctx.async();
+    AtomicInteger received0 = new AtomicInteger();
+    AtomicInteger received1 = new AtomicInteger();
+    consumer.handler(record -> {
+      if (record.partition() == 0) {
+        if (received0.incrementAndGet() == 1) {
+          // the handler only pauses the partition of the record
+          consumer.pause();
+          ctx.assertEquals(0L, consumer.demand());
+        } else if (received0.get() == num) {
+          consumer.close()
+            .compose(v -> vertx.close())
+            .onComplete(ctx.asyncAssertSuccess(v -> doneLatch.complete()));
+        }
+      } else if (received1.incrementAndGet() == num) {
+        vertx.setTimer(50, id -> {
+          ctx.assertEquals(1, received0.get());
+          // resuming the stream resumes every partition
+          consumer.resume();
+        });
+      }
+    });
+    consumer.subscribe(Collections.singleton("the_topic")).onComplete(v -> {
+      mock.schedulePollTask(() -> {
+        mock.rebalance(Arrays.asList(tp0, tp1));
+        mock.seek(tp0, 0L);
+        mock.seek(tp1, 0L);
+        for (int i = 0; i < num; i++) {
+          mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+          mock.addRecord(new ConsumerRecord<>("the_topic", 1, i, "key-" + i, "value-" + i));
+        }
+      });
+    });
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.tests;
+
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.kafka.client.common.KafkaClientOptions;
+import io.vertx.kafka.client.consumer.KafkaReadStream;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests of per-partition streams using mock consumers
+ */
+@RunWith(VertxUnitRunner.class)
+public class PartitionStreamMockTest {
+
+  private Vertx vertx;
+
+  @Before
+  public void beforeTest() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void afterTest(TestContext ctx) {
+    vertx.close().onComplete(ctx.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testPausedPartitionDoesNotStallOthers(TestContext ctx) {
+    int num = 20;
+    TopicPartition tp0 = new TopicPartition("the_topic", 0);
+    TopicPartition tp1 = new TopicPartition("the_topic", 1);
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaClientOptions options = new KafkaClientOptions().setPartitionBufferSize(5);
+    KafkaReadStream<String, String> consumer = KafkaReadStream.create(vertx, mock, options).pollTimeout(Duration.ofMillis(10));
+    ReadStream<ConsumerRecord<String, String>> slow = consumer.partitionStream(tp0);
+    ReadStream<ConsumerRecord<String, String>> healthy = consumer.partitionStream(tp1);
+    Async doneLatch = ctx.async();
+    AtomicInteger slowCount = new AtomicInteger();
+    AtomicInteger healthyCount = new AtomicInteger();
+    slow.pause();
+    slow.handler(record -> {
+      ctx.assertEquals(0, record.partition());
+      ctx.assertEquals((long) slowCount.getAndIncrement(), record.offset());
+      if (slowCount.get() == num) {
+        consumer.close().onComplete(ctx.asyncAssertSuccess(v -> doneLatch.complete()));
+      }
+    });
+    healthy.handler(record -> {
+      ctx.assertEquals(1, record.partition());
+      if (healthyCount.incrementAndGet() == num) {
+        // the slow partition did not deliver anything and has been paused on the consumer
+        ctx.assertEquals(0, slowCount.get());
+        vertx.setTimer(50, id -> {
+          ctx.assertTrue(mock.paused().contains(tp0));
+          slow.resume();
+        });
+      }
+    });
+    consumer.handler(record -> ctx.fail("Unexpected record " + record));
+    Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+    beginningOffsets.put(tp0, 0L);
+    beginningOffsets.put(tp1, 0L);
+    mock.updateBeginningOffsets(beginningOffsets);
+    consumer.assign(new HashSet<>(Arrays.asList(tp0, tp1))).onComplete(ctx.asyncAssertSuccess(v -> {
+      mock.schedulePollTask(() -> {
+        for (int i = 0; i < num; i++) {
+          mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+          mock.addRecord(new ConsumerRecord<>("the_topic", 1, i, "key-" + i, "value-" + i));
+        }
+      });
+    }));
+  }
+
+  @Test
+  public void testPausedStreamDoesNotStallPartitionStreams(TestContext ctx) {
+    int num = 10;
+    TopicPartition tp0 = new TopicPartition("the_topic", 0);
+    TopicPartition tp1 = new TopicPartition("the_topic", 1);
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaReadStream<String, String> consumer = KafkaReadStream.create(vertx, mock).pollTimeout(Duration.ofMillis(10));
+    ReadStream<ConsumerRecord<String, String>> partition = consumer.partitionStream(tp1);
+    Async doneLatch = ctx.async();
+    AtomicInteger mainCount = new AtomicInteger();
+    AtomicInteger partitionCount = new AtomicInteger();
+    consumer.handler(record -> {
+      ctx.assertEquals(0, record.partition());
+      if (mainCount.incrementAndGet() == 1) {
+        // the records of the partition stream are polled while this stream is paused with records buffered
+        consumer.pause();
+        mock.schedulePollTask(() -> {
+          for (int i = 0; i < num; i++) {
+            mock.addRecord(new ConsumerRecord<>("the_topic", 1, i, "key-" + i, "value-" + i));
+          }
+        });
+      } else if (mainCount.get() == num) {
+        consumer.close().onComplete(ctx.asyncAssertSuccess(v -> doneLatch.complete()));
+      }
+    });
+    partition.handler(record -> {
+      ctx.assertEquals(1, record.partition());
+      if (partitionCount.incrementAndGet() == num) {
+        ctx.assertEquals(1, mainCount.get());
+        ctx.assertTrue(mock.paused().contains(tp0));
+        consumer.resume();
+      }
+    });
+    Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+    beginningOffsets.put(tp0, 0L);
+    beginningOffsets.put(tp1, 0L);
+    mock.updateBeginningOffsets(beginningOffsets);
+    consumer.assign(new HashSet<>(Arrays.asList(tp0, tp1))).onComplete(ctx.asyncAssertSuccess(v -> {
+      mock.schedulePollTask(() -> {
+        for (int i = 0; i < num; i++) {
+          mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+        }
+      });
+    }));
+  }
+
+  @Test
+  public void testPartitionStreamEnds(TestContext ctx) {
+    TopicPartition tp0 = new TopicPartition("the_topic", 0);
+    TopicPartition tp1 = new TopicPartition("the_topic", 1);
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaReadStream<String, String> consumer = KafkaReadStream.create(vertx, mock).pollTimeout(Duration.ofMillis(10));
+    ReadStream<ConsumerRecord<String, String>> revoked = consumer.partitionStream(tp1);
+    ReadStream<ConsumerRecord<String, String>> closed = consumer.partitionStream(tp0);
+    Async doneLatch = ctx.async();
+    Promise<Void> revokedEnd = Promise.promise();
+    Promise<Throwable> failure = Promise.promise();
+    revoked.handler(record -> ctx.fail()).endHandler(v -> revokedEnd.complete());
+    closed.handler(record -> ctx.fail()).exceptionHandler(failure::tryComplete).endHandler(v -> doneLatch.complete());
+    Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+    beginningOffsets.put(tp0, 0L);
+    beginningOffsets.put(tp1, 0L);
+    mock.updateBeginningOffsets(beginningOffsets);
+    consumer.assign(new HashSet<>(Arrays.asList(tp0, tp1)))
+      .compose(v -> consumer.assign(Collections.singleton(tp0)))
+      .compose(v -> revokedEnd.future())
+      .compose(v -> {
+        // the partition stream of the unassigned partition is removed
+        ctx.assertNotEquals(revoked, consumer.partitionStream(tp1));
+        mock.setPollException(new KafkaException("the_failure"));
+        return failure.future();
+      })
+      .onComplete(ctx.asyncAssertSuccess(err -> {
+        ctx.assertEquals("the_failure", err.getMessage());
+        // closing the consumer ends the remaining partition streams
+        consumer.close();
+      }));
+  }
+
+  @Test
+  public void testPartitionStreamBufferedRecords(TestContext ctx) {
+    TopicPartition tp0 = new TopicPartition("the_topic", 0);
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaReadStream<String, String> consumer = KafkaReadStream.create(vertx, mock).pollTimeout(Duration.ofMillis(10));
+    ReadStream<ConsumerRecord<String, String>> partition = consumer.partitionStream(tp0);
+    Async doneLatch = ctx.async();
+    partition.handler(record -> {
+      ctx.assertEquals(0L, record.offset());
+      partition.pause();
+      vertx.setTimer(50, id -> {
+        // the partition is paused by the stream while it buffers records, not by the user
+        ctx.assertTrue(mock.paused().contains(tp0));
+        consumer.paused()
+          .compose(paused -> {
+            ctx.assertTrue(paused.isEmpty());
+            return consumer.resume(Collections.singleton(tp0));
+          })
+          .compose(v -> {
+            ctx.assertTrue(mock.paused().contains(tp0));
+            // the buffered records are not committed
+            return consumer.commit();
+          })
+          .onComplete(ctx.asyncAssertSuccess(offsets -> {
+            ctx.assertEquals(1L, offsets.get(tp0).offset());
+            consumer.close().onComplete(ctx.asyncAssertSuccess(v -> doneLatch.complete()));
+          }));
+      });
+    });
+    consumer.handler(record -> ctx.fail("Unexpected record " + record));
+    mock.updateBeginningOffsets(Collections.singletonMap(tp0, 0L));
+    consumer.assign(Collections.singleton(tp0)).onComplete(ctx.asyncAssertSuccess(v -> {
+      mock.schedulePollTask(() -> {
+        for (int i = 0; i < 5; i++) {
+          mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+        }
+      });
+    }));
+  }
+}
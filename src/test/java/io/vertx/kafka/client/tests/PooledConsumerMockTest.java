@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.tests;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.kafka.client.common.KafkaClientOptions;
+import io.vertx.kafka.client.consumer.IdleStrategy;
+import io.vertx.kafka.client.consumer.KafkaReadStream;
+import io.vertx.kafka.client.consumer.PollerPoolMetrics;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tests using mock consumers polled by a shared poller pool
+ */
+public class PooledConsumerMockTest extends ConsumerMockTestBase {
+
+  @Override
+  <K, V> KafkaReadStream<K, V> createConsumer(Vertx vertx, Consumer<K, V> consumer) {
+    KafkaClientOptions options = new KafkaClientOptions().setPollerPoolName("test-pool").setPollerPoolSize(2);
+    return KafkaReadStream.<K, V>create(vertx, consumer, options).pollTimeout(Duration.ofMillis(10));
+  }
+
+  @Test
+  public void testSharedPoolMetrics(TestContext ctx) {
+    Vertx vertx = Vertx.vertx();
+    KafkaReadStream<String, String> consumer1 = createConsumer(vertx, new MockConsumer<>(OffsetResetStrategy.EARLIEST));
+    KafkaReadStream<String, String> consumer2 = createConsumer(vertx, new MockConsumer<>(OffsetResetStrategy.EARLIEST));
+    ctx.assertNull(consumer1.pollerPoolMetrics());
+    Async done = ctx.async();
+    consumer1.assign(Collections.singleton(new TopicPartition("the_topic", 0)))
+      .compose(v -> consumer2.assign(Collections.singleton(new TopicPartition("the_topic", 1))))
+      .onComplete(ctx.asyncAssertSuccess(v -> {
+        PollerPoolMetrics metrics = consumer1.pollerPoolMetrics();
+        ctx.assertNotNull(metrics);
+        ctx.assertTrue(metrics == consumer2.pollerPoolMetrics());
+        ctx.assertEquals("test-pool", metrics.name());
+        ctx.assertEquals(2, metrics.size());
+        ctx.assertEquals(2, metrics.consumers());
+        consumer1.close()
+          .compose(v2 -> {
+            ctx.assertEquals(1, metrics.consumers());
+            return consumer2.close();
+          })
+          .compose(v2 -> vertx.close())
+          .onComplete(ctx.asyncAssertSuccess(v2 -> done.complete()));
+      }));
+  }
+
+  @Test
+  public void testPooledConsumerDoesNotBlockPool(TestContext ctx) {
+    Vertx vertx = Vertx.vertx();
+    List<Duration> timeouts = new CopyOnWriteArrayList<>();
+    MockConsumer<String, String> idle = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+      @Override
+      public synchronized ConsumerRecords<String, String> poll(Duration timeout) {
+        timeouts.add(timeout);
+        return super.poll(timeout);
+      }
+    };
+    MockConsumer<String, String> busy = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    // a single thread shared by an idle consumer configured to park for long and a consumer receiving a record
+    KafkaClientOptions options = new KafkaClientOptions()
+      .setPollerPoolName("single-thread-pool")
+      .setPollerPoolSize(1)
+      .setIdleStrategy(IdleStrategy.PARK)
+      .setIdleMaxBackoff(10_000L);
+    KafkaReadStream<String, String> consumer1 = KafkaReadStream.<String, String>create(vertx, idle, options).pollTimeout(Duration.ofSeconds(10));
+    KafkaReadStream<String, String> consumer2 = KafkaReadStream.<String, String>create(vertx, busy, options).pollTimeout(Duration.ofSeconds(10));
+    TopicPartition tp = new TopicPartition("the_topic", 0);
+    Async done = ctx.async();
+    consumer1.handler(record -> ctx.fail());
+    consumer1.assign(Collections.singleton(new TopicPartition("the_topic", 1))).onComplete(ctx.asyncAssertSuccess(v1 -> {
+      vertx.setTimer(1000, id -> {
+        long start = System.currentTimeMillis();
+        consumer2.handler(record -> {
+          ctx.assertEquals("abc", record.key());
+          ctx.assertTrue(System.currentTimeMillis() - start < 5000);
+          ctx.assertFalse(timeouts.isEmpty());
+          for (Duration timeout : timeouts) {
+            ctx.assertEquals(Duration.ZERO, timeout);
+          }
+          consumer1.close()
+            .compose(v2 -> consumer2.close())
+            .compose(v2 -> vertx.close())
+            .onComplete(ctx.asyncAssertSuccess(v2 -> done.complete()));
+        });
+        consumer2.assign(Collections.singleton(tp)).onComplete(ctx.asyncAssertSuccess(v2 -> {
+          busy.schedulePollTask(() -> {
+            busy.updateBeginningOffsets(Collections.singletonMap(tp, 0L));
+            busy.addRecord(new ConsumerRecord<>("the_topic", 0, 0L, "abc", "def"));
+            busy.seek(tp, 0L);
+          });
+        }));
+      });
+    }));
+  }
+}
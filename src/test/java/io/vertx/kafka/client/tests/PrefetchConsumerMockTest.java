@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.tests;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.kafka.client.common.KafkaClientOptions;
+import io.vertx.kafka.client.consumer.KafkaReadStream;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests using mock consumers polled ahead of the dispatch
+ */
+public class PrefetchConsumerMockTest extends ConsumerMockTestBase {
+
+  @Override
+  <K, V> KafkaReadStream<K, V> createConsumer(Vertx vertx, Consumer<K, V> consumer) {
+    KafkaClientOptions options = new KafkaClientOptions().setPrefetchDepth(2);
+    return KafkaReadStream.<K, V>create(vertx, consumer, options).pollTimeout(Duration.ofMillis(10));
+  }
+
+  @Test
+  public void testSeekDiscardsPrefetchedRecords(TestContext ctx) {
+    Vertx vertx = Vertx.vertx();
+    TopicPartition tp = new TopicPartition("the_topic", 0);
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaReadStream<String, String> consumer = createConsumer(vertx, mock);
+    Async doneLatch = ctx.async();
+    List<Long> offsets = new ArrayList<>();
+    consumer.handler(record -> {
+      offsets.add(record.offset());
+      if (record.offset() == 2L) {
+        consumer.seek(tp, 10L).onComplete(ctx.asyncAssertSuccess(v -> {
+          mock.schedulePollTask(() -> {
+            for (int i = 10; i < 13; i++) {
+              mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+            }
+          });
+        }));
+      } else if (record.offset() == 12L) {
+        ctx.assertEquals(Arrays.asList(0L, 1L, 2L, 10L, 11L, 12L), offsets);
+        consumer.close()
+          .compose(v -> vertx.close())
+          .onComplete(ctx.asyncAssertSuccess(v -> doneLatch.complete()));
+      }
+    });
+    consumer.subscribe(Collections.singleton("the_topic")).onComplete(v -> {
+      mock.schedulePollTask(() -> {
+        mock.rebalance(Collections.singletonList(tp));
+        mock.seek(tp, 0L);
+        for (int i = 0; i < 5; i++) {
+          mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+        }
+      });
+    });
+  }
+
+  @Test
+  public void testCommitDeliveredRecords(TestContext ctx) {
+    Vertx vertx = Vertx.vertx();
+    TopicPartition tp = new TopicPartition("the_topic", 0);
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaReadStream<String, String> consumer = createConsumer(vertx, mock);
+    Async doneLatch = ctx.async();
+    consumer.handler(record -> {
+      if (record.offset() == 1L) {
+        consumer.pause();
+        vertx.setTimer(10, id -> {
+          // the position is ahead of the prefetched records, only the delivered records are committed
+          consumer.commit().onComplete(ctx.asyncAssertSuccess(offsets -> {
+            ctx.assertEquals(2L, offsets.get(tp).offset());
+            ctx.assertEquals(2L, mock.committed(Collections.singleton(tp)).get(tp).offset());
+            consumer.close()
+              .compose(v -> vertx.close())
+              .onComplete(ctx.asyncAssertSuccess(v -> doneLatch.complete()));
+          }));
+        });
+      }
+    });
+    consumer.subscribe(Collections.singleton("the_topic")).onComplete(v -> {
+      mock.schedulePollTask(() -> {
+        mock.rebalance(Collections.singletonList(tp));
+        mock.seek(tp, 0L);
+        for (int i = 0; i < 5; i++) {
+          mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+        }
+      });
+    });
+  }
+}
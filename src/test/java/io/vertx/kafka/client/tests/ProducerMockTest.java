@@ -18,33 +18,52 @@ package io.vertx.kafka.client.tests;
 
 import io.vertx.core.Context;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.kafka.client.common.KafkaClientOptions;
 import io.vertx.kafka.client.consumer.KafkaReadStream;
 import io.vertx.kafka.client.producer.KafkaProducer;
 import io.vertx.kafka.client.producer.KafkaProducerRecord;
+import io.vertx.kafka.client.producer.KafkaTransactionalProducerPool;
 import io.vertx.kafka.client.producer.KafkaWriteStream;
+import io.vertx.kafka.client.producer.RecordCoalescedException;
+import io.vertx.kafka.client.producer.impl.KafkaProducerImpl;
+import io.vertx.kafka.client.producer.impl.KafkaWriteStreamPool;
+import io.vertx.kafka.client.serialization.BufferSerializer;
 
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
 import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.MockProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests using mock producers
@@ -191,6 +210,588 @@ public class ProducerMockTest {
     });
   }
 
+  @Test
+  public void testDirectSend(TestContext ctx) {
+    List<Boolean> onEventLoop = Collections.synchronizedList(new ArrayList<>());
+    StringSerializer serializer = new StringSerializer() {
+      @Override
+      public byte[] serialize(String topic, String data) {
+        onEventLoop.add(Context.isOnEventLoopThread());
+        return super.serialize(topic, data);
+      }
+    };
+    MockProducer<String, String> mock = new MockProducer<>(true, serializer, serializer);
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock, new KafkaClientOptions().setDirectSend(true));
+    Async async = ctx.async();
+    vertx.runOnContext(v -> {
+      producer.send(new ProducerRecord<>("the_topic", "abc", "def")).onComplete(ctx.asyncAssertSuccess(m1 -> {
+        producer.send(new ProducerRecord<>("the_topic", "ghi", "jkl")).onComplete(ctx.asyncAssertSuccess(m2 -> {
+          // the key and the value of the first record are serialized on a worker, until the topic is known
+          ctx.assertEquals(Arrays.asList(false, false, true, true), onEventLoop);
+          ctx.assertEquals(2, mock.history().size());
+          async.complete();
+        }));
+      }));
+    });
+  }
+
+  @Test
+  public void testWarmUp(TestContext ctx) {
+    List<Boolean> onEventLoop = Collections.synchronizedList(new ArrayList<>());
+    StringSerializer serializer = new StringSerializer() {
+      @Override
+      public byte[] serialize(String topic, String data) {
+        onEventLoop.add(Context.isOnEventLoopThread());
+        return super.serialize(topic, data);
+      }
+    };
+    MockProducer<String, String> mock = new MockProducer<>(true, serializer, serializer);
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock, new KafkaClientOptions()
+      .setDirectSend(true)
+      .addWarmUpTopic("the_topic"));
+    Async async = ctx.async();
+    producer.ready().onComplete(ctx.asyncAssertSuccess(v -> {
+      vertx.runOnContext(v2 -> {
+        producer.send(new ProducerRecord<>("the_topic", "abc", "def")).onComplete(ctx.asyncAssertSuccess(m -> {
+          // the metadata is known, the first record is sent from the event loop
+          ctx.assertEquals(Arrays.asList(true, true), onEventLoop);
+          producer.close().onComplete(ctx.asyncAssertSuccess(v3 -> async.complete()));
+        }));
+      });
+    }));
+  }
+
+  @Test
+  public void testCompletionsAreBatched(TestContext ctx) {
+    MockProducer<String, String> mock = new MockProducer<>(false, new StringSerializer(), new StringSerializer());
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock);
+    ProducerRecord<String, String> record = new ProducerRecord<>("the_topic", 0, "key", "value");
+    // the low water mark is reached after half of the records, unless they are released at once
+    producer.setWriteQueueMaxSize(10 * 8);
+    Context context = vertx.getOrCreateContext();
+    Async async = ctx.async();
+    context.runOnContext(v -> {
+      List<io.vertx.core.Future<RecordMetadata>> sends = new ArrayList<>();
+      for (int i = 0;i < 10;i++) {
+        sends.add(producer.send(record).onComplete(ctx.asyncAssertSuccess(m -> ctx.assertEquals(context, Vertx.currentContext()))));
+      }
+      ctx.assertTrue(producer.writeQueueFull());
+      producer.drainHandler(v2 -> {
+        ctx.assertEquals(context, Vertx.currentContext());
+        for (io.vertx.core.Future<RecordMetadata> send : sends) {
+          ctx.assertTrue(send.succeeded());
+        }
+        async.complete();
+      });
+      vertx.setPeriodic(1, id -> {
+        if (mock.history().size() == 10) {
+          vertx.cancelTimer(id);
+          // the callbacks run on the event loop, their completions are delivered by a single task
+          for (int i = 0;i < 10;i++) {
+            mock.completeNext();
+          }
+        }
+      });
+    });
+  }
+
+  @Test
+  public void testSharedWarmUp(TestContext ctx) {
+    List<Boolean> onEventLoop = Collections.synchronizedList(new ArrayList<>());
+    StringSerializer serializer = new StringSerializer() {
+      @Override
+      public byte[] serialize(String topic, String data) {
+        onEventLoop.add(Context.isOnEventLoopThread());
+        return super.serialize(topic, data);
+      }
+    };
+    MockProducer<String, String> mock = new MockProducer<>(true, serializer, serializer);
+    KafkaProducer<String, String> producer = KafkaProducerImpl.createShared(vertx, "the_producer", () -> KafkaWriteStream.create(vertx, mock, new KafkaClientOptions()
+      .setDirectSend(true)
+      .addWarmUpTopic("the_topic")));
+    Async async = ctx.async();
+    producer.ready().onComplete(ctx.asyncAssertSuccess(v -> {
+      vertx.runOnContext(v2 -> {
+        producer.send(KafkaProducerRecord.create("the_topic", "abc", "def")).onComplete(ctx.asyncAssertSuccess(m -> {
+          // the metadata warmed up by the shared stream is known to the shared producer
+          ctx.assertEquals(Arrays.asList(true, true), onEventLoop);
+          producer.close().onComplete(ctx.asyncAssertSuccess(v3 -> async.complete()));
+        }));
+      });
+    }));
+  }
+
+  @Test
+  public void testSendBatch(TestContext ctx) {
+    TestProducer mock = new TestProducer();
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock);
+    List<ProducerRecord<String, String>> records = new ArrayList<>();
+    for (int i = 0;i < 10;i++) {
+      records.add(new ProducerRecord<>("the_topic", 0, "key-" + i, "value-" + i));
+    }
+    Async async = ctx.async();
+    producer.sendBatch(records).onComplete(ctx.asyncAssertSuccess(metadata -> {
+      ctx.assertTrue(Context.isOnEventLoopThread());
+      ctx.assertEquals(10, metadata.size());
+      for (int i = 0;i < 10;i++) {
+        ctx.assertEquals((long) i, metadata.get(i).offset());
+      }
+      ctx.assertFalse(producer.writeQueueFull());
+      async.complete();
+    }));
+    for (int i = 0;i < 10;i++) {
+      mock.assertCompleteNext();
+    }
+  }
+
+  @Test
+  public void testSendBatchFailure(TestContext ctx) {
+    TestProducer mock = new TestProducer();
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock);
+    RuntimeException cause = new RuntimeException();
+    Async async = ctx.async(2);
+    producer.exceptionHandler(err -> {
+      ctx.assertEquals(cause, err);
+      async.countDown();
+    });
+    producer.sendBatch(Arrays.asList(
+      new ProducerRecord<>("the_topic", 0, "abc", "def"),
+      new ProducerRecord<>("the_topic", 0, "ghi", "jkl"))).onComplete(ctx.asyncAssertFailure(err -> {
+      ctx.assertEquals(cause, err);
+      async.countDown();
+    }));
+    mock.assertCompleteNext();
+    mock.assertErrorNext(cause);
+  }
+
+  @Test
+  public void testFireAndForget(TestContext ctx) {
+    TestProducer mock = new TestProducer();
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock, new KafkaClientOptions().setFireAndForget(true));
+    producer.setWriteQueueMaxSize(6);
+    RuntimeException cause = new RuntimeException();
+    Async async = ctx.async(2);
+    producer.exceptionHandler(err -> {
+      ctx.assertEquals(cause, err);
+      async.countDown();
+    });
+    for (int i = 0;i < 2;i++) {
+      ctx.assertTrue(producer.write(new ProducerRecord<>("the_topic", 0, "abc", "def")).succeeded());
+    }
+    ctx.assertTrue(producer.writeQueueFull());
+    producer.drainHandler(v -> {
+      ctx.assertEquals(1L, producer.acknowledgedRecords());
+      ctx.assertEquals(1L, producer.failedRecords());
+      async.countDown();
+    });
+    mock.assertCompleteNext();
+    mock.assertErrorNext(cause);
+  }
+
+  @Test
+  public void testWriteQueueBytes() {
+    MockProducer<String, Buffer> mock = new MockProducer<>(false, new StringSerializer(), new BufferSerializer());
+    KafkaWriteStream<String, Buffer> producer = KafkaWriteStream.create(vertx, mock);
+    producer.setWriteQueueMaxSize(200);
+    ProducerRecord<String, Buffer> record = new ProducerRecord<>("the_topic", 0, "key", Buffer.buffer(new byte[100]));
+    record.headers().add("header", new byte[10]);
+    producer.write(record);
+    assertFalse(producer.writeQueueFull());
+    producer.write(record);
+    assertTrue(producer.writeQueueFull());
+  }
+
+  @Test
+  public void testAutoTransactions(TestContext ctx) {
+    MockProducer<String, String> mock = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock, new KafkaClientOptions()
+      .setAutoTransactions(true)
+      .setTransactionMaxRecords(3)
+      .setTransactionMaxTime(60_000));
+    List<io.vertx.core.Future<RecordMetadata>> sends = new ArrayList<>();
+    for (int i = 0;i < 3;i++) {
+      sends.add(producer.send(new ProducerRecord<>("the_topic", 0, "key-" + i, "value-" + i)));
+    }
+    Async async = ctx.async();
+    io.vertx.core.Future.all(sends).onComplete(ctx.asyncAssertSuccess(v -> {
+      // the three records share a transaction committed once it holds them all
+      ctx.assertTrue(mock.transactionCommitted());
+      ctx.assertEquals(3, mock.history().size());
+      producer.beginTransaction().onComplete(ctx.asyncAssertFailure(err -> ctx.assertTrue(err instanceof IllegalStateException)));
+      producer.send(new ProducerRecord<>("the_topic", 0, "key-3", "value-3")).onComplete(ctx.asyncAssertSuccess(m -> {
+        // the flush commits the transaction before it is full
+        ctx.assertEquals(4, mock.history().size());
+        async.complete();
+      }));
+      producer.flush();
+    }));
+  }
+
+  @Test
+  public void testCoalescing(TestContext ctx) {
+    MockProducer<String, String> mock = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock, new KafkaClientOptions()
+      .setCoalesceWindow(60_000));
+    List<io.vertx.core.Future<RecordMetadata>> sends = new ArrayList<>();
+    for (int i = 0;i < 5;i++) {
+      sends.add(producer.send(new ProducerRecord<>("the_topic", "key", "value-" + i)));
+    }
+    sends.add(producer.send(new ProducerRecord<>("the_topic", "other_key", "value")));
+    ctx.assertEquals(4L, producer.coalescedRecords());
+    ctx.assertEquals(0, mock.history().size());
+    Async async = ctx.async();
+    io.vertx.core.Future.join(sends).onComplete(ar -> {
+      // only the last record of each key is written
+      ctx.assertEquals(2, mock.history().size());
+      for (ProducerRecord<String, String> record : mock.history()) {
+        ctx.assertEquals("key".equals(record.key()) ? "value-4" : "value", record.value());
+      }
+      // the sends of the replaced records fail
+      for (int i = 0;i < 4;i++) {
+        ctx.assertTrue(sends.get(i).cause() instanceof RecordCoalescedException);
+      }
+      ctx.assertTrue(sends.get(4).succeeded());
+      ctx.assertTrue(sends.get(5).succeeded());
+      async.complete();
+    });
+    // sends the held records before the end of the window
+    producer.flush();
+  }
+
+  @Test
+  public void testCoalescingBeforeBatch(TestContext ctx) {
+    MockProducer<String, String> mock = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock, new KafkaClientOptions()
+      .setCoalesceWindow(60_000));
+    Async async = ctx.async(2);
+    producer.write(new ProducerRecord<>("the_topic", "key", "value-0")).onComplete(ctx.asyncAssertSuccess(v -> async.countDown()));
+    producer.sendBatch(Collections.singletonList(new ProducerRecord<>("the_topic", "key", "value-1"))).onComplete(ctx.asyncAssertSuccess(metadata -> {
+      // the held record is written before the record of the batch
+      List<ProducerRecord<String, String>> history = mock.history();
+      ctx.assertEquals(2, history.size());
+      ctx.assertEquals("value-0", history.get(0).value());
+      ctx.assertEquals("value-1", history.get(1).value());
+      ctx.assertEquals(0L, producer.coalescedRecords());
+      async.countDown();
+    }));
+  }
+
+  @Test
+  public void testRateLimit(TestContext ctx) {
+    MockProducer<String, String> mock = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock, new KafkaClientOptions()
+      .setMaxRecordsPerSecond(100)
+      .setRateLimitBurst(10));
+    ProducerRecord<String, String> record = new ProducerRecord<>("the_topic", 0, "key", "value");
+    Async async = ctx.async();
+    vertx.runOnContext(v -> {
+      // the burst capacity is a single record, the second one waits for 10ms of tokens
+      producer.write(record);
+      ctx.assertFalse(producer.writeQueueFull());
+      producer.write(record);
+      ctx.assertTrue(producer.writeQueueFull());
+      long start = System.nanoTime();
+      producer.drainHandler(v2 -> {
+        ctx.assertTrue(System.nanoTime() - start >= 5_000_000L);
+        ctx.assertFalse(producer.writeQueueFull());
+        producer.setRateLimit(0, 0);
+        for (int i = 0;i < 100;i++) {
+          producer.write(record);
+        }
+        ctx.assertFalse(producer.writeQueueFull());
+        async.complete();
+      });
+    });
+  }
+
+  @Test
+  public void testRateLimitSends(TestContext ctx) {
+    MockProducer<String, String> mock = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock, new KafkaClientOptions()
+      .setMaxRecordsPerSecond(100)
+      .setRateLimitBurst(10));
+    ProducerRecord<String, String> record = new ProducerRecord<>("the_topic", 0, "key", "value");
+    Async async = ctx.async();
+    vertx.runOnContext(v -> {
+      long start = System.nanoTime();
+      List<io.vertx.core.Future<?>> sends = new ArrayList<>();
+      // sends ignoring the write queue are held until the rate goes down
+      for (int i = 0;i < 4;i++) {
+        sends.add(producer.send(record));
+      }
+      sends.add(producer.sendBatch(Arrays.asList(record, record)));
+      io.vertx.core.Future.all(sends).onComplete(ctx.asyncAssertSuccess(v2 -> {
+        // a burst of one record, then a record every 10ms
+        ctx.assertTrue(System.nanoTime() - start >= 25_000_000L);
+        ctx.assertEquals(6, mock.history().size());
+        async.complete();
+      }));
+    });
+  }
+
+  @Test
+  public void testRateLimitChange() {
+    MockProducer<String, String> mock = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock, new KafkaClientOptions()
+      .setMaxRecordsPerSecond(10)
+      .setRateLimitBurst(1000));
+    ProducerRecord<String, String> record = new ProducerRecord<>("the_topic", 0, "key", "value");
+    // takes the burst of 10 records
+    for (int i = 0;i < 10;i++) {
+      producer.write(record);
+    }
+    assertFalse(producer.writeQueueFull());
+    // the tokens are not refilled by the change of the limits
+    producer.setRateLimit(20, 0);
+    producer.write(record);
+    assertTrue(producer.writeQueueFull());
+  }
+
+  @Test
+  public void testRateLimitFlush(TestContext ctx) {
+    MockProducer<String, String> mock = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock, new KafkaClientOptions()
+      .setMaxRecordsPerSecond(1)
+      .setRateLimitBurst(1000));
+    ProducerRecord<String, String> record = new ProducerRecord<>("the_topic", 0, "key", "value");
+    long start = System.nanoTime();
+    List<io.vertx.core.Future<?>> sends = new ArrayList<>();
+    for (int i = 0;i < 3;i++) {
+      sends.add(producer.send(record));
+    }
+    // the held sends are sent without waiting for the rate to go down
+    producer.flush();
+    Async async = ctx.async();
+    io.vertx.core.Future.all(sends).onComplete(ctx.asyncAssertSuccess(v -> {
+      ctx.assertTrue(System.nanoTime() - start < 1_000_000_000L);
+      ctx.assertEquals(3, mock.history().size());
+      producer.close().onComplete(ctx.asyncAssertSuccess(v2 -> async.complete()));
+    }));
+  }
+
+  @Test
+  public void testTransactionalProducerPool(TestContext ctx) {
+    List<String> transactionalIds = Collections.synchronizedList(new ArrayList<>());
+    Map<String, MockProducer<String, String>> mocks = Collections.synchronizedMap(new HashMap<>());
+    KafkaTransactionalProducerPool<String, String> pool = KafkaTransactionalProducerPool.create(vertx, "app", transactionalId -> {
+      MockProducer<String, String> mock = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+      transactionalIds.add(transactionalId);
+      mocks.put(transactionalId, mock);
+      return KafkaProducer.create(vertx, mock);
+    });
+    TopicPartition p0 = new TopicPartition("input", 0);
+    TopicPartition p1 = new TopicPartition("input", 1);
+    Async async = ctx.async();
+    pool.assign(new HashSet<>(Arrays.asList(p0, p1))).onComplete(ctx.asyncAssertSuccess(v1 -> {
+      ctx.assertEquals(new HashSet<>(Arrays.asList("app-input-0", "app-input-1")), new HashSet<>(transactionalIds));
+      ctx.assertTrue(mocks.get("app-input-0").transactionInitialized());
+      MockProducer<String, String> first = mocks.get("app-input-0");
+      pool.revoke(Collections.singleton(p0)).onComplete(ctx.asyncAssertSuccess(v2 -> {
+        ctx.assertTrue(first.closed());
+        ctx.assertEquals(Collections.singleton(p1), pool.partitions());
+        // the partition comes back, a new producer with the same transactional.id fences the previous one
+        pool.producer(p0).onComplete(ctx.asyncAssertSuccess(producer -> {
+          ctx.assertEquals(3, transactionalIds.size());
+          ctx.assertNotEquals(first, mocks.get("app-input-0"));
+          ctx.assertTrue(mocks.get("app-input-0").transactionInitialized());
+          pool.close().onComplete(ctx.asyncAssertSuccess(v3 -> {
+            ctx.assertTrue(pool.partitions().isEmpty());
+            async.complete();
+          }));
+        }));
+      }));
+    }));
+  }
+
+  @Test
+  public void testTransactionalProducerPoolBind(TestContext ctx) {
+    Map<String, MockProducer<String, String>> mocks = Collections.synchronizedMap(new HashMap<>());
+    KafkaTransactionalProducerPool<String, String> pool = KafkaTransactionalProducerPool.create(vertx, "app", transactionalId -> {
+      MockProducer<String, String> mock = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+      mocks.put(transactionalId, mock);
+      return KafkaProducer.create(vertx, mock);
+    });
+    AtomicReference<ConsumerRebalanceListener> listener = new AtomicReference<>();
+    MockConsumer<String, String> mock = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+      @Override
+      public synchronized void subscribe(Collection<String> topics, ConsumerRebalanceListener l) {
+        // the mock consumer does not call the rebalance listener
+        listener.set(l);
+        super.subscribe(topics, l);
+      }
+    };
+    KafkaReadStream<String, String> consumer = KafkaReadStream.create(vertx, mock);
+    TopicPartition p0 = new TopicPartition("input", 0);
+    TopicPartition p1 = new TopicPartition("input", 1);
+    Async assigned = ctx.async();
+    Async revoked = ctx.async();
+    pool.bind(consumer, partitions -> {
+      ctx.assertEquals(new HashSet<>(Arrays.asList(p0, p1)), partitions);
+      ctx.assertEquals(partitions, pool.partitions());
+      assigned.complete();
+      mock.schedulePollTask(() -> {
+        mock.rebalance(Collections.singleton(p1));
+        listener.get().onPartitionsRevoked(Collections.singleton(p0));
+      });
+    }, partitions -> {
+      ctx.assertEquals(Collections.singleton(p0), partitions);
+      // called before the producer is closed
+      ctx.assertFalse(mocks.get("app-input-0").closed());
+      revoked.complete();
+    });
+    consumer.handler(record -> {});
+    consumer.subscribe(Collections.singleton("input")).onComplete(ctx.asyncAssertSuccess(v -> {
+      mock.schedulePollTask(() -> {
+        mock.rebalance(Arrays.asList(p0, p1));
+        listener.get().onPartitionsAssigned(Arrays.asList(p0, p1));
+      });
+    }));
+    Async done = ctx.async();
+    revoked.handler(ctx.asyncAssertSuccess(v -> {
+      vertx.setTimer(100, id -> {
+        ctx.assertTrue(mocks.get("app-input-0").closed());
+        ctx.assertEquals(Collections.singleton(p1), pool.partitions());
+        consumer.close()
+          .compose(v2 -> pool.close())
+          .onComplete(ctx.asyncAssertSuccess(v2 -> done.complete()));
+      });
+    }));
+  }
+
+  @Test
+  public void testProducerPool(TestContext ctx) {
+    List<MockProducer<String, String>> mocks = new ArrayList<>();
+    List<KafkaProducer<String, String>> producers = new ArrayList<>();
+    for (int i = 0;i < 3;i++) {
+      MockProducer<String, String> mock = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+      mocks.add(mock);
+      producers.add(KafkaProducer.create(vertx, mock));
+    }
+    KafkaWriteStream<String, String> pool = new KafkaWriteStreamPool<>(producers);
+    List<ProducerRecord<String, String>> records = new ArrayList<>();
+    for (int i = 0;i < 30;i++) {
+      records.add(new ProducerRecord<>("the_topic", "key-" + (i % 5), "value-" + i));
+    }
+    Async async = ctx.async();
+    pool.sendBatch(records).onComplete(ctx.asyncAssertSuccess(metadata -> {
+      ctx.assertEquals(30, metadata.size());
+      ctx.assertEquals(30L, pool.acknowledgedRecords());
+      int total = 0;
+      for (MockProducer<String, String> mock : mocks) {
+        List<ProducerRecord<String, String>> history = mock.history();
+        total += history.size();
+        for (ProducerRecord<String, String> record : history) {
+          // all the records of a key are written by the same producer, in order
+          List<String> values = new ArrayList<>();
+          for (ProducerRecord<String, String> other : records) {
+            if (other.key().equals(record.key())) {
+              values.add(other.value());
+            }
+          }
+          List<String> written = new ArrayList<>();
+          for (ProducerRecord<String, String> other : history) {
+            if (other.key().equals(record.key())) {
+              written.add(other.value());
+            }
+          }
+          ctx.assertEquals(values, written);
+        }
+      }
+      ctx.assertEquals(30, total);
+      async.complete();
+    }));
+  }
+
+  @Test
+  public void testSharedProducerPoolOptions(TestContext ctx) {
+    List<MockProducer<String, String>> mocks = new ArrayList<>();
+    KafkaClientOptions options = new KafkaClientOptions().setCoalesceWindow(60_000);
+    KafkaProducer<String, String> pool = KafkaProducerImpl.createPool(vertx, "the_pool", 2, name -> KafkaProducerImpl.createShared(vertx, name, () -> {
+      MockProducer<String, String> mock = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+      mocks.add(mock);
+      return KafkaWriteStream.create(vertx, mock, options);
+    }));
+    List<io.vertx.core.Future<?>> sends = new ArrayList<>();
+    for (int i = 0;i < 3;i++) {
+      sends.add(pool.send(KafkaProducerRecord.create("the_topic", "key", "value-" + i)));
+    }
+    // the shared producers are created with the coalescing window of the options
+    ctx.assertEquals(2L, pool.coalescedRecords());
+    Async async = ctx.async();
+    io.vertx.core.Future.join(sends).onComplete(ar -> {
+      int total = 0;
+      for (MockProducer<String, String> mock : mocks) {
+        total += mock.history().size();
+      }
+      ctx.assertEquals(1, total);
+      // the sends of the replaced records fail
+      ctx.assertTrue(sends.get(0).cause() instanceof RecordCoalescedException);
+      ctx.assertTrue(sends.get(1).cause() instanceof RecordCoalescedException);
+      ctx.assertTrue(sends.get(2).succeeded());
+      pool.close().onComplete(ctx.asyncAssertSuccess(v -> async.complete()));
+    });
+    pool.flush();
+  }
+
+  @Test
+  public void testSharedProducerStreams(TestContext ctx) {
+    AtomicInteger created = new AtomicInteger();
+    MockProducer<String, String> mock = new MockProducer<>(false, new StringSerializer(), new StringSerializer());
+    KafkaProducer<String, String> producer1 = KafkaProducerImpl.createShared(vertx, "the_producer", () -> {
+      created.incrementAndGet();
+      return KafkaWriteStream.create(vertx, mock);
+    });
+    KafkaProducer<String, String> producer2 = KafkaProducerImpl.createShared(vertx, "the_producer", () -> {
+      created.incrementAndGet();
+      return KafkaWriteStream.create(vertx, mock);
+    });
+    ctx.assertEquals(1, created.get());
+    // the shared producers have their own write queue
+    producer1.setWriteQueueMaxSize(1);
+    producer1.write(KafkaProducerRecord.create("the_topic", "key", "value"));
+    ctx.assertTrue(producer1.writeQueueFull());
+    ctx.assertFalse(producer2.writeQueueFull());
+    Async async = ctx.async();
+    producer1.close()
+      .compose(v -> producer2.close())
+      .onComplete(ctx.asyncAssertSuccess(v -> {
+        ctx.assertTrue(mock.closed());
+        async.complete();
+      }));
+  }
+
+  @Test
+  public void testWriteQueueStringBytes() {
+    MockProducer<String, String> mock = new MockProducer<>(false, new StringSerializer(), new StringSerializer());
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock);
+    producer.setWriteQueueMaxSize(200);
+    // 60 chars encoded on 120 bytes
+    ProducerRecord<String, String> record = new ProducerRecord<>("the_topic", 0, "key", "\u00e9".repeat(60));
+    producer.write(record);
+    assertFalse(producer.writeQueueFull());
+    producer.write(record);
+    assertTrue(producer.writeQueueFull());
+  }
+
+  @Test
+  public void testSendFailureReleasesWriteQueue(TestContext ctx) {
+    MockProducer<String, String> mock = new MockProducer<String, String>(false, new StringSerializer(), new StringSerializer()) {
+      @Override
+      public synchronized Future<RecordMetadata> send(ProducerRecord<String, String> record, Callback callback) {
+        throw new KafkaException("simulated");
+      }
+    };
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock);
+    producer.setWriteQueueMaxSize(2);
+    Async async = ctx.async(2);
+    producer.drainHandler(v -> async.countDown());
+    producer.send(new ProducerRecord<>("the_topic", 0, "key", "value")).onComplete(ctx.asyncAssertFailure(err -> {
+      ctx.assertEquals("simulated", err.getMessage());
+      ctx.assertFalse(producer.writeQueueFull());
+      async.countDown();
+    }));
+  }
+
   @Test
   public void testWriteWithSimulatedError(TestContext ctx) {
     TestProducerWriteError mock = new TestProducerWriteError();
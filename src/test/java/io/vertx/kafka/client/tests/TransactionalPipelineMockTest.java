@@ -0,0 +1,191 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.kafka.client.tests;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.kafka.client.common.KafkaClientOptions;
+import io.vertx.kafka.client.consumer.KafkaReadStream;
+import io.vertx.kafka.client.producer.KafkaTransactionalPipeline;
+import io.vertx.kafka.client.producer.KafkaWriteStream;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests of the transactional pipeline using a mock consumer and a mock producer
+ */
+@RunWith(VertxUnitRunner.class)
+public class TransactionalPipelineMockTest {
+
+  private static final TopicPartition INPUT = new TopicPartition("input", 0);
+
+  private Vertx vertx;
+  private MockConsumer<String, String> mockConsumer;
+  private MockProducer<String, String> mockProducer;
+
+  @Before
+  public void beforeTest() {
+    vertx = Vertx.vertx();
+    mockConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    mockConsumer.updateBeginningOffsets(Collections.singletonMap(INPUT, 0L));
+    mockProducer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+  }
+
+  @After
+  public void afterTest(TestContext ctx) {
+    vertx.close().onComplete(ctx.asyncAssertSuccess());
+  }
+
+  private KafkaTransactionalPipeline<String, String, String, String> pipeline(KafkaReadStream<String, String> consumer, AtomicBoolean failing) {
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mockProducer);
+    return KafkaTransactionalPipeline.create(vertx, consumer, producer, record -> {
+      if (record.offset() == 3 && failing.getAndSet(false)) {
+        throw new IllegalStateException("Cannot transform the record");
+      }
+      return Collections.singletonList(new ProducerRecord<>("output", record.key(), record.value().toUpperCase()));
+    }, new KafkaClientOptions().setTransactionMaxRecords(5).setTransactionMaxTime(60_000));
+  }
+
+  private void addRecords(int count) {
+    for (int i = 0;i < count;i++) {
+      mockConsumer.addRecord(new ConsumerRecord<>(INPUT.topic(), INPUT.partition(), i, "key-" + i, "value-" + i));
+    }
+  }
+
+  private long committedOffset() {
+    List<Map<String, Map<TopicPartition, OffsetAndMetadata>>> history = mockProducer.consumerGroupOffsetsHistory();
+    return history.get(history.size() - 1).values().iterator().next().get(INPUT).offset();
+  }
+
+  @Test
+  public void testPipeline(TestContext ctx) {
+    KafkaReadStream<String, String> consumer = KafkaReadStream.create(vertx, mockConsumer);
+    KafkaTransactionalPipeline<String, String, String, String> pipeline = pipeline(consumer, new AtomicBoolean());
+    pipeline.exceptionHandler(ctx::fail);
+    Async async = ctx.async();
+    pipeline.start()
+      .compose(v -> consumer.assign(Collections.singleton(INPUT)))
+      .onComplete(ctx.asyncAssertSuccess(v -> {
+        addRecords(10);
+        vertx.setPeriodic(10, id -> {
+          if (pipeline.committedTransactions() == 2) {
+            vertx.cancelTimer(id);
+            // each transaction holds 5 records and commits the offsets of the consumed records
+            ctx.assertEquals(10, mockProducer.history().size());
+            ctx.assertEquals("VALUE-9", mockProducer.history().get(9).value());
+            ctx.assertEquals(2, mockProducer.consumerGroupOffsetsHistory().size());
+            ctx.assertEquals(10L, committedOffset());
+            pipeline.stop().onComplete(ctx.asyncAssertSuccess(v2 -> async.complete()));
+          }
+        });
+      }));
+  }
+
+  @Test
+  public void testAbortAndRewind(TestContext ctx) {
+    KafkaReadStream<String, String> consumer = KafkaReadStream.create(vertx, mockConsumer);
+    KafkaTransactionalPipeline<String, String, String, String> pipeline = pipeline(consumer, new AtomicBoolean(true));
+    Async failed = ctx.async();
+    pipeline.exceptionHandler(err -> {
+      ctx.assertEquals("Cannot transform the record", err.getMessage());
+      ctx.assertEquals(1L, pipeline.abortedTransactions());
+      // the consumer has been rewound to the first record of the aborted transaction
+      ctx.assertEquals(0L, mockConsumer.position(INPUT));
+      addRecords(5);
+      failed.complete();
+    });
+    Async async = ctx.async();
+    pipeline.start()
+      .compose(v -> consumer.assign(Collections.singleton(INPUT)))
+      .onComplete(ctx.asyncAssertSuccess(v -> {
+        addRecords(5);
+        vertx.setPeriodic(10, id -> {
+          if (pipeline.committedTransactions() == 1) {
+            vertx.cancelTimer(id);
+            // the records sent by the aborted transaction are discarded
+            ctx.assertEquals(5, mockProducer.history().size());
+            ctx.assertEquals("VALUE-0", mockProducer.history().get(0).value());
+            ctx.assertEquals(5L, committedOffset());
+            async.complete();
+          }
+        });
+      }));
+  }
+
+  @Test
+  public void testSkipPoisonRecord(TestContext ctx) {
+    KafkaReadStream<String, String> consumer = KafkaReadStream.create(vertx, mockConsumer);
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mockProducer);
+    KafkaTransactionalPipeline<String, String, String, String> pipeline = KafkaTransactionalPipeline.create(vertx, consumer, producer, record -> {
+      if (record.offset() == 3) {
+        throw new IllegalStateException("Cannot transform the record");
+      }
+      return Collections.singletonList(new ProducerRecord<>("output", record.key(), record.value().toUpperCase()));
+    }, new KafkaClientOptions().setTransactionMaxRecords(5).setTransactionMaxTime(60_000).setTransactionMaxRetries(2));
+    AtomicInteger failures = new AtomicInteger();
+    pipeline.exceptionHandler(err -> {
+      ctx.assertEquals("Cannot transform the record", err.getMessage());
+      if (failures.incrementAndGet() <= 2) {
+        // the consumer has been rewound, the mock consumer needs the records again
+        addRecords(5);
+      }
+    });
+    pipeline.deadLetterHandler((record, err) -> {
+      ctx.assertEquals(3L, record.offset());
+      ctx.assertEquals("Cannot transform the record", err.getMessage());
+      return Collections.singletonList(new ProducerRecord<>("dead-letters", record.key(), record.value()));
+    });
+    Async async = ctx.async();
+    pipeline.start()
+      .compose(v -> consumer.assign(Collections.singleton(INPUT)))
+      .onComplete(ctx.asyncAssertSuccess(v -> {
+        addRecords(5);
+        vertx.setPeriodic(10, id -> {
+          if (pipeline.committedTransactions() == 1) {
+            vertx.cancelTimer(id);
+            // the record is tried 3 times, the first 2 failures abort the transaction and the last one skips it
+            ctx.assertEquals(2L, pipeline.abortedTransactions());
+            ctx.assertEquals(3, failures.get());
+            ctx.assertEquals(5, mockProducer.history().size());
+            ctx.assertEquals("dead-letters", mockProducer.history().get(3).topic());
+            ctx.assertEquals("value-3", mockProducer.history().get(3).value());
+            ctx.assertEquals(5L, committedOffset());
+            pipeline.stop().onComplete(ctx.asyncAssertSuccess(v2 -> async.complete()));
+          }
+        });
+      }));
+  }
+}